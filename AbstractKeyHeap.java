@@ -0,0 +1,680 @@
+/**
+ * AbstractKeyHeap
+ *
+ * The Fibonacci heap shared by LongKeyHeap, DoubleKeyHeap and GenericHeap: the roots'
+ * ring, consolidation, cascading cuts and heapify up, with the possibility of not
+ * performing lazy melds and the possibility of not performing lazy decrease keys,
+ * as in Heap. A subclass defines its nodes' key, how two nodes' keys compare, and
+ * the typed insert, decreaseKey and meld that call insertNode, keyDecreased and meldHeap.
+ *
+ */
+public abstract class AbstractKeyHeap<N extends AbstractKeyHeap.Node<N>>
+{
+    public final boolean lazyMelds;
+    public final boolean lazyDecreaseKeys;
+    private N min;
+    private N first; // pointer to the first tree's root
+    private int heapSize; // heap's size
+    private int numTrees;
+    private long linksCnt;
+    private long cutCnt;
+    private long totalHeapifyCosts;
+    private int numMarkedNodes;
+    private boolean rootsInRankOrder; // roots form a binomial forest of ascending ranks from first
+    private N[] rankBuckets; // consolidation workspace, indexed by rank
+    private int rankBucketsMaxSize; // the largest heap size rankBuckets can hold the ranks of
+
+    /* ###############################################################################
+    //                               main methods
+    ############################################################################### */
+
+    /**
+     *
+     * Constructor to initialize an empty heap.
+     *
+     */
+    protected AbstractKeyHeap(boolean lazyMelds, boolean lazyDecreaseKeys)
+    {
+        this.lazyMelds = lazyMelds;
+        this.lazyDecreaseKeys = lazyDecreaseKeys;
+        this.rootsInRankOrder = true;
+    }
+
+    /**
+     *
+     * Return the minimal node, null if empty.
+     *
+     */
+    public N findMin()
+    {
+        return min;
+    }
+
+    /**
+     *
+     * Delete the minimal item.
+     *
+     */
+    public void deleteMin()
+    {
+        // Handle empty heap
+        if (heapSize == 0 || min == null) {
+            return;
+        }
+        this.deleteRoot(min);
+    }
+
+    /**
+     *
+     * Delete the x from the heap.
+     *
+     */
+    public void delete(N x)
+    {
+        // cut x (and its marked ancestors) so it becomes a root, no key can be smaller than x's
+        if (x.parent != null)
+            this.cascadingCut(x);
+        this.deleteRoot(x);
+    }
+
+    /**
+     *
+     * Return the number of elements in the heap
+     *
+     */
+    public int size()
+    {
+        return heapSize;
+    }
+
+    /**
+     *
+     * Return the number of trees in the heap.
+     *
+     */
+    public int numTrees()
+    {
+        return numTrees;
+    }
+
+    /**
+     *
+     * Return the number of marked nodes in the heap.
+     *
+     */
+    public int numMarkedNodes()
+    {
+        return numMarkedNodes;
+    }
+
+    /**
+     *
+     * Return the total number of links.
+     *
+     */
+    public long totalLinks()
+    {
+        return linksCnt;
+    }
+
+    /**
+     *
+     * Return the total number of cuts.
+     *
+     */
+    public long totalCuts()
+    {
+        return cutCnt;
+    }
+
+    /**
+     *
+     * Return the total heapify costs.
+     *
+     */
+    public long totalHeapifyCosts()
+    {
+        return totalHeapifyCosts;
+    }
+
+
+    /* ###############################################################################
+    //                               subclass methods
+    ############################################################################### */
+
+    /**
+     * returns true if the key of a is smaller than the key of b
+     */
+    protected abstract boolean less(N a, N b);
+
+    /**
+     * add the new node to the heap and return it
+     */
+    protected N insertNode(N newNode)
+    {
+        heapSize++;
+        if (this.lazyMelds) {
+            // a lazy meld with a single node heap is just a splice into the roots
+            this.insertNodeToRoots(newNode);
+            this.updateMin(newNode);
+        }
+        else if (rootsInRankOrder) {
+            this.carryIntoRoots(newNode);
+        }
+        else {
+            // cuts broke the binomial forest, consolidate as a not lazy meld would
+            this.insertNodeToRoots(newNode);
+            this.consolidate();
+        }
+        return newNode;
+    }
+
+    /**
+     * fix the heap after the key of x was decreased
+     */
+    protected void keyDecreased(N x)
+    {
+        if (x.parent != null && less(x, x.parent)) { // the rule of heap is violated
+            if (lazyDecreaseKeys)
+                this.cascadingCut(x);
+            else
+                this.heapifyUp(x);
+        }
+        this.updateMin(x); // update the min node if necessary
+    }
+
+    /**
+     * meld heap2 into this heap
+     * pre: heap2.lazyMelds = this.lazyMelds AND heap2.lazyDecreaseKeys = this.lazyDecreaseKeys
+     * AND heap2 orders keys as this heap does
+     */
+    protected void meldHeap(AbstractKeyHeap<N> heap2)
+    {
+        // the other heap is empty so no changes required
+        if (heap2 == null || heap2.size() == 0)
+            return;
+        if (this.size() == 0) {
+            min = heap2.min;
+            first = heap2.first;
+            rootsInRankOrder = heap2.rootsInRankOrder;
+        }
+        else {
+            //connecting 'edges'
+            N lastNodeHeap2 = heap2.first.prev;
+            this.first.prev.connectNext(heap2.first);
+            lastNodeHeap2.connectNext(this.first);
+            this.updateMin(heap2.min);
+            rootsInRankOrder = false;
+        }
+
+        // update attributes
+        heapSize += heap2.heapSize;
+        numTrees += heap2.numTrees;
+        linksCnt += heap2.linksCnt;
+        cutCnt += heap2.cutCnt;
+        totalHeapifyCosts += heap2.totalHeapifyCosts;
+        numMarkedNodes += heap2.numMarkedNodes;
+
+        if (!this.lazyMelds)
+            this.consolidate();
+    }
+
+
+    /* ###############################################################################
+    //                               HELP METHODS
+    ############################################################################### */
+
+    /**
+     * updates the min field out of all roots
+     */
+    private void updateMin()
+    {
+        if (heapSize == 0 || first == null) {
+            min = null;
+            return;
+        }
+        min = first;
+        for (N curr = first.next; curr != first; curr = curr.next)
+            this.updateMin(curr);
+    }
+
+    /**
+     * updates the min field if node is smaller
+     */
+    private void updateMin(N node)
+    {
+        if (min == null || less(node, min))
+            min = node;
+    }
+
+    /**
+     * pre: x is a root
+     * remove x from the heap, its children become roots
+     */
+    private void deleteRoot(N x)
+    {
+        // edge case of a single-node-heap
+        if (heapSize == 1) {
+            min = null;
+            first = null;
+            heapSize = 0;
+            numTrees = 0;
+            rootsInRankOrder = true;
+            return;
+        }
+        if (numTrees == 1) {
+            first = x.child;
+            // for each child, remove the parent
+            this.removeParents(first);
+        }
+        else {
+            // Remove x from the root list
+            if (x == first)
+                first = first.next;
+            x.prev.connectNext(x.next);
+
+            // add the deleted node's children as trees to the heap
+            if (x.child != null) {
+                N second = first.next;
+                N currChild = x.child;
+                N lastChild = currChild.prev;
+                // for each child, remove the parent
+                this.removeParents(currChild);
+                // connect the children to the heap's roots
+                first.connectNext(currChild);
+                lastChild.connectNext(second);
+            }
+        }
+        heapSize -= 1;
+        numTrees += x.rank - 1;
+        this.consolidate();
+        this.updateMin();
+    }
+
+    /**
+     * move node up the tree without updating the min node.
+     * the nodes are relinked rather than trading keys, so every node
+     * returned by insert keeps holding its own key and value.
+     * the children's parents are set once at the end, see Heap.HeapifyUp
+     */
+    private void heapifyUp(N node)
+    {
+        N lowestAncestor = node.parent;
+        int swaps = 0;
+        while (node.parent != null && less(node, node.parent)) {
+            this.swapWithParent(node);
+            swaps++;
+        }
+        if (swaps == 0)
+            return;
+        totalHeapifyCosts += swaps;
+        // the ancestors moved one place down, each still pointing to the one above it
+        N ancestor = lowestAncestor;
+        while (ancestor != node.parent) {
+            N above = ancestor.parent;
+            this.setParents(ancestor.child, ancestor);
+            ancestor = above;
+        }
+        this.setParents(node.child, node);
+    }
+
+    /**
+     * pre: node is not a root
+     * exchange the places of node and its parent in the tree,
+     * setting only node's own parent
+     */
+    private void swapWithParent(N node)
+    {
+        N prnt = node.parent;
+        N grandParent = prnt.parent;
+        N nodeChild = node.child;
+        N nodePrev = node.prev;
+        N nodeNext = node.next;
+        N prntPrev = prnt.prev;
+        N prntNext = prnt.next;
+
+        // node replaces prnt in prnt's chain
+        if (prntNext == prnt) {
+            node.next = node;
+            node.prev = node;
+        }
+        else {
+            prntPrev.connectNext(node);
+            node.connectNext(prntNext);
+        }
+        node.parent = grandParent;
+        if (grandParent != null) {
+            if (grandParent.child == prnt)
+                grandParent.child = node;
+        }
+        else if (first == prnt)
+            first = node;
+        if (min == prnt)
+            min = node;
+
+        // prnt replaces node among prnt's children, which become node's children
+        if (nodeNext == node) {
+            prnt.next = prnt;
+            prnt.prev = prnt;
+        }
+        else {
+            nodePrev.connectNext(prnt);
+            prnt.connectNext(nodeNext);
+        }
+        node.child = (prnt.child == node) ? prnt : prnt.child;
+
+        // node's children become prnt's children
+        prnt.child = nodeChild;
+
+        // the rank and the mark belong to the place in the tree
+        int tmpRank = node.rank;
+        node.rank = prnt.rank;
+        prnt.rank = tmpRank;
+        boolean tmpMark = node.mark;
+        node.mark = prnt.mark;
+        prnt.mark = tmpMark;
+    }
+
+    /**
+     * cut node from its parent and continue upwards while the parents are marked
+     */
+    private void cascadingCut(N node)
+    {
+        N prnt = node.parent;
+        this.cut(node);
+        // climb while prnt is a marked non-root
+        while (prnt.parent != null && prnt.mark) {
+            N grandParent = prnt.parent;
+            this.cut(prnt);
+            prnt = grandParent;
+        }
+        // mark the first unmarked non-root ancestor
+        if (prnt.parent != null) {
+            prnt.mark = true;
+            numMarkedNodes++;
+        }
+    }
+
+    /**
+     * pre: node is in heap
+     * cut node from its parent and add it to the heap's roots
+     */
+    private void cut(N node)
+    {
+        N prnt = node.parent;
+        // check if node is an only child
+        if (node.next == node)
+            prnt.child = null;
+        else {
+            if (prnt.child == node) // if node is the first child of prnt
+                prnt.child = node.next;
+            node.prev.connectNext(node.next); // omit node from its original chain
+        }
+        // insert node to the heap's roots
+        this.insertNodeToRoots(node);
+        // update parameters
+        prnt.rank--;
+        cutCnt++;
+    }
+
+    /**
+     * relocate the input node to the heap's roots
+     */
+    private void insertNodeToRoots(N node)
+    {
+        if (first == null) {
+            node.next = node;
+            node.prev = node;
+        }
+        else
+            node.insertBefore(first);
+        first = node;
+        node.parent = null;
+        numTrees++; // update counter
+        this.unmark(node);
+        rootsInRankOrder = false;
+    }
+
+    /**
+     * pre: the roots form a binomial forest of ascending ranks starting at first
+     * add a new rank 0 tree to the roots like incrementing a binary counter
+     */
+    private void carryIntoRoots(N node)
+    {
+        N carry = node;
+        while (first != null && first.rank == carry.rank) {
+            N root = first;
+            // omit root from the roots' chain
+            if (root.next == root)
+                first = null;
+            else {
+                first = root.next;
+                root.prev.connectNext(root.next);
+            }
+            root.next = root;
+            root.prev = root;
+            numTrees--;
+            carry = this.link(carry, root);
+        }
+        // the carried tree has the smallest rank so it becomes the first root
+        if (first == null) {
+            carry.next = carry;
+            carry.prev = carry;
+        }
+        else
+            carry.insertBefore(first);
+        first = carry;
+        numTrees++;
+        // the min might have been linked below the carried root (equal keys)
+        if (min == null || min.parent != null || less(carry, min))
+            min = carry;
+    }
+
+    /**
+     * For each node in the chain of the input node, remove its parent
+     */
+    private void removeParents(N node)
+    {
+        if (node == null) return;
+        N curr = node;
+        do {
+            curr.parent = null;
+            this.unmark(curr);
+            curr = curr.next;
+        } while (curr != node);
+    }
+
+    /**
+     * clear the mark of node, a root to be, keeping numMarkedNodes exact
+     */
+    private void unmark(N node)
+    {
+        if (node.mark) {
+            node.mark = false;
+            numMarkedNodes--;
+        }
+    }
+
+    /**
+     * For each node in the chain of the input node, set its parent to prnt
+     */
+    private void setParents(N node, N prnt)
+    {
+        if (node == null) return;
+        N curr = node;
+        do {
+            curr.parent = prnt;
+            curr = curr.next;
+        } while (curr != node);
+    }
+
+    /**
+     * consolidate the heap's trees as a valid binomial heap
+     */
+    private void consolidate()
+    {
+        // handle empty heaps
+        if (heapSize == 0 || numTrees == 0 || first == null) {
+            return;
+        }
+
+        // the "buckets" in which we keep the trees of same ranks
+        N[] buckets = this.consolidationBuckets();
+        int topRank = 0;
+
+        // iterate through the heap
+        N curr = first;
+        for (int i = 0; i < numTrees; i++)
+        {
+            // separate curr from others, keep a pointer for the next tree
+            N nxt = curr.next;
+            curr.next = curr;
+            curr.prev = curr;
+
+            N subTree = buckets[curr.rank];
+            while (subTree != null)
+            {
+                buckets[curr.rank] = null; // remove the inside tree from its bucket
+                curr = this.link(curr, subTree); // assign curr to be the root of the linked tree
+                subTree = buckets[curr.rank]; // assign to the next bucket
+            }
+            buckets[curr.rank] = curr; // insert the new tree to the relevant bucket
+            if (curr.rank > topRank)
+                topRank = curr.rank;
+            curr = nxt;
+        }
+        this.fromBucketsToHeap(buckets, topRank); // update the heap to match the trees in the buckets
+    }
+
+    /**
+     * returns the consolidation workspace, grown only when the heap's size
+     * exceeds the largest size it was allocated for
+     */
+    @SuppressWarnings("unchecked")
+    private N[] consolidationBuckets()
+    {
+        if (rankBuckets == null || heapSize > rankBucketsMaxSize) {
+            int bitLength = 32 - Integer.numberOfLeadingZeros(heapSize);
+            rankBuckets = (N[]) new Node<?>[bitLength + (bitLength >> 1) + 2];
+            rankBucketsMaxSize = (1 << bitLength) - 1;
+        }
+        return rankBuckets;
+    }
+
+    /**
+     * pre: x, y roots in the heap
+     * link the two nodes according to heaps' rule
+     * returns a pointer to the root of the linked tree
+     */
+    private N link(N x, N y)
+    {
+        // make x node the smaller one
+        if (less(y, x)) {
+            N temp = x;
+            x = y;
+            y = temp;
+        }
+
+        // consider whether x node has no children
+        if (x.child == null)
+            y.next = y;
+        else {
+            y.connectNext(x.child.next);
+            x.child.connectNext(y);
+        }
+        // connect parent - child
+        x.child = y;
+        y.parent = x;
+        // update rank
+        x.rank++;
+        // increase the heap's links count by 1
+        linksCnt++;
+        return x;
+    }
+
+    /**
+     * creates a valid binomial heap out of buckets' nodes
+     * and clears the buckets up to topRank for the next consolidation
+     */
+    private void fromBucketsToHeap(N[] buckets, int topRank)
+    {
+        min = null;
+        first = null;
+        numTrees = 0;
+        rootsInRankOrder = true;
+        // go over the nodes in buckets from the biggest to smallest
+        for (int i = topRank; i >= 0; i--) {
+            N node = buckets[i];
+            if (node != null)
+            {
+                buckets[i] = null;
+                // checks if we didn't encounter real nodes yet
+                if (first == null) {
+                    node.next = node;
+                    node.prev = node;
+                }
+                else
+                    node.insertBefore(first);
+                first = node;
+                this.updateMin(node);
+                // increase the trees counter by one for each inserted tree
+                numTrees += 1;
+            }
+        }
+    }
+
+
+    /**
+     * The tree links of a node in an AbstractKeyHeap, N being the node class itself.
+     *
+     */
+    public abstract static class Node<N extends Node<N>>{
+        public N child;
+        public N next;
+        public N prev;
+        public N parent;
+        public int rank;
+        public boolean mark;
+
+        /**
+         * constructor of a single node chain
+         * assign prev and next to be this
+         */
+        protected Node()
+        {
+            this.next = this.self();
+            this.prev = this.self();
+        }
+
+        /**
+         * returns this node as an N
+         */
+        @SuppressWarnings("unchecked")
+        private N self()
+        {
+            return (N) this;
+        }
+
+        /**
+         * inserts self to be before node by adjusting
+         * the pointers to be in the order of: prev, self, node
+         */
+        public void insertBefore(N node)
+        {
+            N preNode = node.prev;
+            this.next = node;
+            this.prev = preNode;
+            node.prev = this.self();
+            preNode.next = this.self();
+        }
+
+        /**
+         * connects next node to be the next of self
+         */
+        public void connectNext(N next)
+        {
+            this.next = next;
+            next.prev = this.self();
+        }
+    }
+}
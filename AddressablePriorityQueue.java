@@ -0,0 +1,116 @@
+/**
+ * AddressablePriorityQueue
+ *
+ * A priority queue over positive integers whose insert returns a handle of type H
+ * to the new item, by which the item's key can be decreased or the item deleted.
+ * Implemented by Heap, FibonacciHeap, PairingHeap, RankPairingHeap and
+ * TimerWheelHeap, and by the asQueue() views of the heaps with int or long
+ * handles, whose handles are SlotHandles. PriorityQueues creates any of them by name.
+ *
+ */
+public interface AddressablePriorityQueue<H>
+{
+	/**
+	 * pre: key > 0
+	 *
+	 * Insert (key,info) into the queue and return the handle of the new item.
+	 *
+	 */
+	H insert(int key, String info);
+
+	/**
+	 *
+	 * Return the handle of the minimal item, null if empty.
+	 *
+	 */
+	H findMin();
+
+	/**
+	 *
+	 * Delete the minimal item.
+	 *
+	 */
+	void deleteMin();
+
+	/**
+	 *
+	 * pre: 0<=diff<=key(x)
+	 *
+	 * Decrease the key of x by diff.
+	 *
+	 */
+	void decreaseKey(H x, int diff);
+
+	/**
+	 *
+	 * Delete x from the queue.
+	 *
+	 */
+	void delete(H x);
+
+	/**
+	 *
+	 * pre: other is of the same class and configuration as this queue
+	 *
+	 * Meld other into this queue. other must not be used afterwards.
+	 * The handles of other's items stay valid and now address them in this queue.
+	 * The views with SlotHandles copy other's items, in time linear in other's size,
+	 * and move their handles along.
+	 *
+	 */
+	void meld(AddressablePriorityQueue<H> other);
+
+	/**
+	 *
+	 * Return the key of x.
+	 *
+	 */
+	int key(H x);
+
+	/**
+	 *
+	 * Return the number of elements in the queue
+	 *
+	 */
+	int size();
+
+	/**
+	 *
+	 * Return the number of trees in the queue.
+	 *
+	 */
+	int numTrees();
+
+	/**
+	 *
+	 * Return the total number of links.
+	 *
+	 */
+	long totalLinks();
+
+	/**
+	 *
+	 * Return the total number of cuts.
+	 *
+	 */
+	long totalCuts();
+
+	/**
+	 *
+	 * Return the total heapify costs, 0 for queues that never heapify.
+	 *
+	 */
+	long totalHeapifyCosts();
+
+	/**
+	 *
+	 * Return a snapshot of the queue's counters, see HeapStats.
+	 * Queues that don't track marks, ranks, consolidations or deleteMins report 0 for them.
+	 *
+	 */
+	default HeapStats stats()
+	{
+		return new HeapStats(this.totalLinks(), this.totalCuts(), this.totalHeapifyCosts(), 0,
+			this.numTrees(), this.size(), 0, 0, 0);
+	}
+}
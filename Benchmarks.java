@@ -0,0 +1,366 @@
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks
+ *
+ * Measures the time per operation of insert, deleteMin, decreaseKey, delete and meld
+ * on the PriorityQueues engines, by default the four Heap modes and FibonacciHeap,
+ * for every n and key distribution:
+ * - uniform: the keys 1..n in random order
+ * - ascending: the keys 1..n in ascending order
+ * - descending: the keys 1..n in descending order
+ *
+ * Each measured invocation runs on a fresh heap whose setup (building the heap,
+ * the keys and the targets) is outside the timed region, and the infos are null
+ * so no strings are built. Every benchmark runs in a fresh JVM of its own, so the
+ * JIT profile of one engine doesn't leak into the next, first runs warmup invocations
+ * for the JIT, then reports the average time per operation, the throughput, the
+ * allocated bytes per operation and allocation rate from the thread's allocation
+ * counter, and the collections and their time during the measured invocations.
+ *
+ * This is not a JMH suite: JMH rejects benchmark classes in the default package,
+ * where every class of this project is, so a JMH module with its Maven build has
+ * to wait until the sources move into a package. Until then Benchmarks follows
+ * JMH's forks, warmup, consumed results, and the allocation and GC counters of
+ * its gc profiler.
+ *
+ * Options, as system properties:
+ * -Dbenchmarks.engines=binomial,fibonacci,...   (PriorityQueues names)
+ * -Dbenchmarks.operations=insert,deleteMin,decreaseKey,delete,meld
+ * -Dbenchmarks.distributions=uniform,ascending,descending
+ * -Dbenchmarks.n=1024,65536
+ * -Dbenchmarks.warmup=5 -Dbenchmarks.iterations=10
+ * -Dbenchmarks.fork=false   (run every benchmark in this JVM)
+ */
+
+class BenchmarkResult {
+    long nanos;
+    long allocatedBytes;
+    long gcCount;
+    long gcMillis;
+    int operations;
+
+    BenchmarkResult(long nanos, long allocatedBytes, long gcCount, long gcMillis, int operations) {
+        this.nanos = nanos;
+        this.allocatedBytes = allocatedBytes;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+        this.operations = operations;
+    }
+}
+
+public class Benchmarks {
+
+    static final int MELD_PARTS = 64;  // heaps melded in one meld invocation
+
+    static final String[] ENGINES = option("benchmarks.engines", "binomial,lazy-binomial,fibonacci,binomial-cutoffs,fibonacci-heap");
+    static final String[] OPERATIONS = option("benchmarks.operations", "insert,deleteMin,decreaseKey,delete,meld");
+    static final String[] DISTRIBUTIONS = option("benchmarks.distributions", "uniform,ascending,descending");
+    static final String[] SIZES = option("benchmarks.n", "1024,65536");
+    static final int WARMUP = Integer.getInteger("benchmarks.warmup", 5);
+    static final int ITERATIONS = Integer.getInteger("benchmarks.iterations", 10);
+    static final boolean FORK = Boolean.parseBoolean(System.getProperty("benchmarks.fork", "true"));
+
+    static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    static volatile long sink;  // consumes results so the JIT can't drop the measured work
+
+    /**
+     * Read a comma separated option
+     */
+    static String[] option(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue).split(",");
+    }
+
+    /**
+     * The thread bean if it can count allocated bytes, otherwise null
+     */
+    static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported())
+            return null;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    /**
+     * Bytes allocated so far by this thread, 0 if they can't be counted
+     */
+    static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Collections so far, summed over the collectors
+     */
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(collector.getCollectionCount(), 0);
+        return count;
+    }
+
+    /**
+     * Milliseconds spent in collections so far, summed over the collectors
+     */
+    static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(collector.getCollectionTime(), 0);
+        return millis;
+    }
+
+    /**
+     * Generate the keys 1..n of the given distribution
+     */
+    static int[] generateKeys(int n, String distribution) {
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++)
+            keys[i] = (distribution.equals("descending")) ? n - i : i + 1;
+        if (distribution.equals("uniform")) {
+            List<Integer> list = new ArrayList<>();
+            for (int key : keys)
+                list.add(key);
+            Collections.shuffle(list, new Random(n));
+            for (int i = 0; i < n; i++)
+                keys[i] = list.get(i);
+        } else if (!distribution.equals("ascending") && !distribution.equals("descending")) {
+            throw new IllegalArgumentException("unknown key distribution " + distribution);
+        }
+        return keys;
+    }
+
+    /**
+     * Generate a random order of the indices 0..n-1, the targets of decreaseKey and delete
+     */
+    static int[] generateOrder(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        Random random = new Random(-n);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        return order;
+    }
+
+    /**
+     * Create an array for length handles of a heap
+     */
+    @SuppressWarnings("unchecked")
+    static <H> H[] newHandles(int length) {
+        return (H[]) new Object[length];
+    }
+
+    /**
+     * Create an empty heap of the same engine as heap
+     */
+    @SuppressWarnings("unchecked")
+    static <H> AddressablePriorityQueue<H> newHeapLike(String engine, AddressablePriorityQueue<H> heap) {
+        return (AddressablePriorityQueue<H>) PriorityQueues.create(engine);
+    }
+
+    /**
+     * Run one invocation of the operation on the given empty heap:
+     * the untimed setup, then the timed operations
+     */
+    static <H> BenchmarkResult invoke(String engine, String operation, AddressablePriorityQueue<H> heap, int[] keys, int[] order) {
+        int n = keys.length;
+        H[] handles = newHandles(n);
+        long checksum = 0;
+        long start;
+        long allocatedStart;
+        int operations;
+        long gcCountStart = gcCount();
+        long gcMillisStart = gcMillis();
+
+        switch (operation) {
+            case "insert": {
+                allocatedStart = allocatedBytes();
+                start = System.nanoTime();
+                for (int i = 0; i < n; i++)
+                    handles[i] = heap.insert(keys[i], null);
+                operations = n;
+                break;
+            }
+            case "deleteMin": {
+                for (int i = 0; i < n; i++)
+                    heap.insert(keys[i], null);
+                allocatedStart = allocatedBytes();
+                start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    checksum += heap.key(heap.findMin());
+                    heap.deleteMin();
+                }
+                operations = n;
+                break;
+            }
+            case "decreaseKey":
+            case "delete": {
+                // a deleteMin first so the items are in real trees, not just roots
+                for (int i = 0; i < n; i++)
+                    handles[i] = heap.insert(keys[i] + 1, null);
+                heap.deleteMin();
+                int minIndex = -1;
+                for (int i = 0; i < n; i++) {
+                    if (keys[i] == 1)
+                        minIndex = i;
+                }
+                allocatedStart = allocatedBytes();
+                start = System.nanoTime();
+                operations = 0;
+                for (int index : order) {
+                    if (index == minIndex)
+                        continue;
+                    if (operation.equals("delete")) {
+                        heap.delete(handles[index]);
+                        if (++operations == n / 2)
+                            break;
+                    } else {
+                        heap.decreaseKey(handles[index], keys[index] / 2);
+                        operations++;
+                    }
+                }
+                checksum += heap.size();
+                break;
+            }
+            case "meld": {
+                // MELD_PARTS heaps of n / MELD_PARTS items melded into one, then a
+                // deleteMin pays for the consolidation a lazy meld defers
+                List<AddressablePriorityQueue<H>> parts = new ArrayList<>();
+                parts.add(heap);
+                for (int part = 1; part < MELD_PARTS; part++)
+                    parts.add(newHeapLike(engine, heap));
+                for (int i = 0; i < n; i++)
+                    parts.get(i % MELD_PARTS).insert(keys[i], null);
+                for (AddressablePriorityQueue<H> part : parts)
+                    part.deleteMin();
+                allocatedStart = allocatedBytes();
+                start = System.nanoTime();
+                for (int part = 1; part < MELD_PARTS; part++)
+                    heap.meld(parts.get(part));
+                heap.deleteMin();
+                operations = MELD_PARTS;
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown operation " + operation);
+        }
+
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedStart;
+        sink += checksum + heap.size();
+        return new BenchmarkResult(nanos, allocated, gcCount() - gcCountStart, gcMillis() - gcMillisStart, operations);
+    }
+
+    /**
+     * Run the warmup and the measured invocations of one benchmark and print its line
+     */
+    static void benchmark(String engine, String operation, String distribution, int n) {
+        int[] keys = generateKeys(n, distribution);
+        int[] order = generateOrder(n);
+
+        for (int i = 0; i < WARMUP; i++)
+            invoke(engine, operation, PriorityQueues.create(engine), keys, order);
+        System.gc();
+
+        double[] nanosPerOp = new double[ITERATIONS];
+        long totalNanos = 0;
+        long totalAllocated = 0;
+        long totalGcCount = 0;
+        long totalGcMillis = 0;
+        long totalOperations = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            BenchmarkResult result = invoke(engine, operation, PriorityQueues.create(engine), keys, order);
+            nanosPerOp[i] = result.nanos / (double) result.operations;
+            totalNanos += result.nanos;
+            totalAllocated += result.allocatedBytes;
+            totalGcCount += result.gcCount;
+            totalGcMillis += result.gcMillis;
+            totalOperations += result.operations;
+        }
+
+        double average = totalNanos / (double) totalOperations;
+        double variance = 0;
+        for (double value : nanosPerOp)
+            variance += (value - average) * (value - average);
+        double error = Math.sqrt(variance / ITERATIONS);
+        double throughput = 1e6 / average;  // operations per ms
+        double bytesPerOp = totalAllocated / (double) totalOperations;
+        double allocationRate = (totalAllocated / 1e6) / (totalNanos / 1e9);  // MB per second
+
+        System.out.println(String.format("%-18s %-12s %-11s %9d %12.1f +- %-9.1f %12.1f %10.1f %10.1f %6d %6d",
+            engine, operation, distribution, n, average, error, throughput, bytesPerOp, allocationRate,
+            totalGcCount, totalGcMillis));
+    }
+
+    /**
+     * Run one benchmark in a new JVM with this JVM's java, class path and options,
+     * its line goes to this JVM's output
+     */
+    static void fork(String engine, String operation, String distribution, int n) {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-Dbenchmarks.fork=false");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Benchmarks.class.getName());
+        command.add(engine);
+        command.add(operation);
+        command.add(distribution);
+        command.add(Integer.toString(n));
+        try {
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            if (process.waitFor() != 0)
+                System.out.println(engine + " " + operation + " " + distribution + " " + n + ": the forked JVM failed");
+        } catch (IOException e) {
+            throw new IllegalStateException("can't fork a JVM for " + engine + " " + operation, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Without arguments run every benchmark, each in its own JVM unless
+     * benchmarks.fork is false. With the arguments engine operation distribution n
+     * run only that benchmark here, as a forked JVM does.
+     */
+    public static void main(String[] args) {
+        if (args.length == 4) {
+            benchmark(args[0], args[1], args[2], Integer.parseInt(args[3]));
+            return;
+        }
+        System.out.println("Warmup invocations: " + WARMUP + ", measured invocations: " + ITERATIONS
+            + (FORK ? ", a JVM per benchmark" : ", all in this JVM"));
+        if (THREADS == null)
+            System.out.println("Allocated bytes can't be counted on this JVM, they are reported as 0");
+        System.out.println(String.format("%-18s %-12s %-11s %9s %24s %12s %10s %10s %6s %6s",
+            "engine", "operation", "keys", "n", "avg ns/op +- stddev", "ops/ms", "B/op", "MB/s", "gcs", "gc ms"));
+
+        for (String size : SIZES) {
+            int n = Integer.parseInt(size.trim());
+            for (String distribution : DISTRIBUTIONS) {
+                for (String operation : OPERATIONS) {
+                    for (String engine : ENGINES) {
+                        if (FORK)
+                            fork(engine, operation, distribution, n);
+                        else
+                            benchmark(engine, operation, distribution, n);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BlockingFibonacciQueue
+ *
+ * A blocking priority queue over positive integers backed by a Heap
+ * (lazyMelds=true, lazyDecreaseKeys=true) behind a ReentrantLock, so waiting
+ * virtual threads unmount instead of pinning their carrier thread.
+ * In delayed mode a key is a deadline in milliseconds since the queue's epoch
+ * and take() waits until the minimal deadline is due. As in DelayQueue, a single
+ * leader waits for the minimum's deadline and the other consumers wait untimed.
+ * Deadlines are int milliseconds, so once REBASE_MILLIS (about 12.4 days) passed since
+ * the epoch it is moved to now and the keys in the queue are shifted down with it.
+ * Delays are therefore bounded by Integer.MAX_VALUE - REBASE_MILLIS milliseconds
+ * (also about 12.4 days), longer ones are due at that bound.
+ * A rebase walks every node under the lock, so once per REBASE_MILLIS one keyFor
+ * or putDelayed stalls all the queue's users for O(size) time. Items that were
+ * already due before the new epoch all get the key 1, so they come out in any order
+ * among themselves; the items that are not yet due keep their order.
+ *
+ */
+public class BlockingFibonacciQueue
+{
+	public static final int REBASE_MILLIS = 1 << 30;
+
+	public final boolean delayed;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Heap heap = new Heap(true, true);
+	private long epochNanos; // guarded by lock
+	private Thread leader; // the consumer waiting for the minimum's deadline, delayed mode only
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 * constructor of an empty queue.
+	 * when delayed is true keys are deadlines, see keyFor
+	 */
+	public BlockingFibonacciQueue(boolean delayed)
+	{
+		this.delayed = delayed;
+		// one millisecond back so that a deadline of now is the positive key 1
+		this.epochNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 *
+	 * Return the key of the deadline delay from now, in milliseconds since the epoch,
+	 * rebasing the epoch first when REBASE_MILLIS passed since it.
+	 * The key is valid until the next rebase, so put it right away, or use putDelayed.
+	 *
+	 */
+	public int keyFor(long delay, TimeUnit unit)
+	{
+		lock.lock();
+		try {
+			long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - epochNanos);
+			if (elapsedMillis >= REBASE_MILLIS) {
+				this.rebase(elapsedMillis);
+				elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - epochNanos);
+			}
+			long millis = elapsedMillis + unit.toMillis(delay);
+			return (int) Math.min(Math.max(millis, 1), Integer.MAX_VALUE);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * Insert info with the deadline delay from now and return the newly generated HeapNode,
+	 * the key and the insert are atomic with respect to a rebase.
+	 *
+	 */
+	public Heap.HeapNode putDelayed(long delay, TimeUnit unit, String info)
+	{
+		lock.lock();
+		try {
+			return this.put(this.keyFor(delay, unit), info);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * pre: key > 0
+	 *
+	 * Insert (key,info) into the queue and return the newly generated HeapNode.
+	 *
+	 */
+	public Heap.HeapNode put(int key, String info)
+	{
+		lock.lock();
+		try {
+			Heap.HeapNode node = heap.insert(key, info);
+			if (heap.findMin() == node) {
+				// a new head: the leader's deadline is stale, let someone wait for this one
+				leader = null;
+				available.signal();
+			}
+			return node;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * Delete the minimal item and return its HeapNode, waiting until
+	 * there is one (and, in delayed mode, until it is due).
+	 *
+	 */
+	public Heap.HeapNode take() throws InterruptedException
+	{
+		lock.lockInterruptibly();
+		try {
+			while (true) {
+				Heap.HeapNode min = heap.findMin();
+				if (min == null) {
+					available.await();
+					continue;
+				}
+				long delay = this.delayNanos(min);
+				if (delay <= 0)
+					return this.deleteMinLocked(min);
+				min = null; // don't keep it while waiting, it may be taken by another thread
+				if (leader != null) {
+					available.await();
+				} else {
+					Thread thisThread = Thread.currentThread();
+					leader = thisThread;
+					try {
+						available.awaitNanos(delay);
+					} finally {
+						if (leader == thisThread)
+							leader = null;
+					}
+				}
+			}
+		} finally {
+			if (leader == null && heap.size() > 0)
+				available.signal();
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * Delete the minimal item and return its HeapNode, null if there is
+	 * no (due) item.
+	 *
+	 */
+	public Heap.HeapNode poll()
+	{
+		lock.lock();
+		try {
+			Heap.HeapNode min = heap.findMin();
+			if (min == null || this.delayNanos(min) > 0)
+				return null;
+			return this.deleteMinLocked(min);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * Delete the minimal item and return its HeapNode, waiting up to timeout
+	 * until there is one (and, in delayed mode, until it is due), null on timeout.
+	 *
+	 */
+	public Heap.HeapNode poll(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (true) {
+				Heap.HeapNode min = heap.findMin();
+				if (min == null) {
+					if (nanos <= 0)
+						return null;
+					nanos = available.awaitNanos(nanos);
+					continue;
+				}
+				long delay = this.delayNanos(min);
+				if (delay <= 0)
+					return this.deleteMinLocked(min);
+				if (nanos <= 0)
+					return null;
+				min = null;
+				if (nanos < delay || leader != null) {
+					nanos = available.awaitNanos(nanos);
+				} else {
+					Thread thisThread = Thread.currentThread();
+					leader = thisThread;
+					try {
+						long timeLeft = available.awaitNanos(delay);
+						nanos -= delay - timeLeft;
+					} finally {
+						if (leader == thisThread)
+							leader = null;
+					}
+				}
+			}
+		} finally {
+			if (leader == null && heap.size() > 0)
+				available.signal();
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * Return the minimal item without deleting it, null if empty.
+	 * In delayed mode the item may not be due yet.
+	 *
+	 */
+	public Heap.HeapNode peek()
+	{
+		lock.lock();
+		try {
+			return heap.findMin();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the queue
+	 *
+	 */
+	public int size()
+	{
+		lock.lock();
+		try {
+			return heap.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+
+	/* #################################################################################
+	//                               help methods
+	#####################################################################################*/
+
+	/**
+	 * nanoseconds until node is due, 0 when not delayed
+	 */
+	private long delayNanos(Heap.HeapNode node)
+	{
+		if (!delayed)
+			return 0;
+		return epochNanos + TimeUnit.MILLISECONDS.toNanos(node.key) - System.nanoTime();
+	}
+
+	/**
+	 * pre: lock is held
+	 * move the epoch elapsedMillis - 1 forward and shift every key down by as much,
+	 * in O(size). keys of items due before the new epoch stop at 1, losing their order
+	 * among themselves. the shift never breaks the heap order, as a key at or below
+	 * its parent's stays so, so the heap stays valid without relinking any node
+	 */
+	private void rebase(long elapsedMillis)
+	{
+		int shift = (int) Math.min(elapsedMillis - 1, Integer.MAX_VALUE);
+		epochNanos += TimeUnit.MILLISECONDS.toNanos(shift);
+		Heap.HeapNode root = heap.findMin();
+		if (root == null)
+			return;
+		ArrayDeque<Heap.HeapNode> chains = new ArrayDeque<>(); // a node of every chain still to shift
+		chains.push(root);
+		while (!chains.isEmpty()) {
+			Heap.HeapNode start = chains.pop();
+			Heap.HeapNode curr = start;
+			do {
+				curr.key = Math.max(curr.key - shift, 1);
+				if (curr.child != null)
+					chains.push(curr.child);
+				curr = curr.next;
+			} while (curr != start);
+		}
+	}
+
+	/**
+	 * pre: lock is held, min is the heap's minimum
+	 * delete min from the heap and return it
+	 */
+	private Heap.HeapNode deleteMinLocked(Heap.HeapNode min)
+	{
+		heap.deleteMin();
+		return min;
+	}
+}
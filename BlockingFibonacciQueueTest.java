@@ -0,0 +1,104 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class BlockingFibonacciQueueTest {
+
+    private static final int THREADS = ConcurrentTest.THREADS;
+    private static final int ITEMS_PER_THREAD = ConcurrentTest.ITEMS_PER_THREAD;
+    private static final int ITEMS = ConcurrentTest.ITEMS;
+    private static final int DELAYED_ITEMS = 40;
+    private static final int MAX_DELAY_MILLIS = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] failedTests = new String[2];
+        int failCount = 0;
+        int testCount = 2;
+
+        if (!testProducersAndConsumers()) {
+            failedTests[failCount++] = "BlockingFibonacciQueue: producers and blocked consumers";
+        }
+
+        if (!testDeadlines(new Random(1))) {
+            failedTests[failCount++] = "BlockingFibonacciQueue (delayed): random deadlines";
+        }
+
+        System.out.println("Passed: " + (testCount - failCount) + " / " + testCount);
+        if (failCount > 0) {
+            System.out.println("Failed tests:");
+            for (int i = 0; i < failCount; i++) {
+                System.out.println("  - " + failedTests[i]);
+            }
+        } else {
+            System.out.println("All tests passed!");
+        }
+    }
+
+    /**
+     * Consumers block before the producers start, the producers put their keys in
+     * random order, and the consumers take every item once.
+     */
+    private static boolean testProducersAndConsumers() throws InterruptedException {
+        BlockingFibonacciQueue queue = new BlockingFibonacciQueue(false);
+        AtomicIntegerArray seen = new AtomicIntegerArray(ITEMS + 1);
+        Thread[] threads = new Thread[2 * THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+                        if (ConcurrentTest.deleteInto(queue.poll(10, TimeUnit.SECONDS), seen) == 0) {
+                            throw new IllegalStateException("no item within 10 seconds");
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (int t = 0; t < THREADS; t++) {
+            int[] keys = ConcurrentTest.shuffledKeys(t * ITEMS_PER_THREAD + 1, new Random(t));
+            threads[THREADS + t] = new Thread(() -> {
+                for (int key : keys) {
+                    queue.put(key, null);
+                }
+            });
+        }
+        return ConcurrentTest.runAll(threads) && queue.size() == 0 && queue.poll() == null
+                && ConcurrentTest.allSeenOnce(seen);
+    }
+
+    /**
+     * Producers put items with random delays, some of them 0, then a consumer takes
+     * them all: the deadlines come out in order, and none before it is due.
+     */
+    private static boolean testDeadlines(Random random) throws InterruptedException {
+        BlockingFibonacciQueue queue = new BlockingFibonacciQueue(true);
+        long start = System.nanoTime();
+        Thread[] producers = new Thread[2];
+        for (int t = 0; t < producers.length; t++) {
+            int[] delays = new int[DELAYED_ITEMS / producers.length];
+            for (int i = 0; i < delays.length; i++) {
+                delays[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(MAX_DELAY_MILLIS);
+            }
+            producers[t] = new Thread(() -> {
+                for (int delay : delays) {
+                    queue.putDelayed(delay, TimeUnit.MILLISECONDS, Integer.toString(delay));
+                }
+            });
+        }
+        if (!ConcurrentTest.runAll(producers)) {
+            return false;
+        }
+        int previousKey = 0;
+        for (int i = 0; i < DELAYED_ITEMS; i++) {
+            Heap.HeapNode node = queue.take();
+            int delay = Integer.parseInt(node.info);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (node.key < previousKey || elapsed < delay - 1) { // keys are truncated to milliseconds
+                return false;
+            }
+            previousKey = node.key;
+        }
+        return queue.size() == 0 && queue.poll(10, TimeUnit.MILLISECONDS) == null;
+    }
+}
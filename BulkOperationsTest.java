@@ -0,0 +1,348 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class BulkOperationsTest {
+
+    private static final int ROUNDS = 50;
+    private static final int MAX_KEY = 100000;
+
+    public static void main(String[] args) {
+        // the parallel consolidation needs a common pool of 2 threads at least, even on one core
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+        String[] failedTests = new String[5];
+        int failCount = 0;
+        int testCount = 5;
+
+        if (!testInsertAll(new Random(1))) {
+            failedTests[failCount++] = "Heap, FibonacciHeap: insertAll and insertAllWithPayloads";
+        }
+
+        if (!testDecreaseKeys(new Random(2))) {
+            failedTests[failCount++] = "Heap: decreaseKeys";
+        }
+
+        if (!testPollMany(new Random(3))) {
+            failedTests[failCount++] = "Heap: pollMany and pollManyKeys";
+        }
+
+        if (!testParallelConsolidate(new Random(4))) {
+            failedTests[failCount++] = "Heap: parallel consolidate against sequential consolidate";
+        }
+
+        if (!testMeldAll(new Random(5))) {
+            failedTests[failCount++] = "Heap: meldAll";
+        }
+
+        System.out.println("Passed: " + (testCount - failCount) + " / " + testCount);
+        if (failCount > 0) {
+            System.out.println("Failed tests:");
+            for (int i = 0; i < failCount; i++) {
+                System.out.println("  - " + failedTests[i]);
+            }
+        } else {
+            System.out.println("All tests passed!");
+        }
+    }
+
+    /**
+     * insertAll and insertAllWithPayloads into heaps that already hold items, in
+     * all four lazy modes and on a FibonacciHeap: the nodes come back in the order
+     * of the keys with their infos or payloads, and the heaps drain in order.
+     */
+    private static boolean testInsertAll(Random random) {
+        for (int round = 0; round < ROUNDS; round++) {
+            int n = random.nextInt(500);
+            int[] keys = randomKeys(random, n);
+            String[] infos = new String[n];
+            int[] payloads = new int[n];
+            for (int i = 0; i < n; i++) {
+                infos[i] = Integer.toString(i);
+                payloads[i] = random.nextInt();
+            }
+            int mode = round % 4;
+            Heap heap = new Heap((mode & 1) != 0, (mode & 2) != 0);
+            FibonacciHeap fibonacci = new FibonacciHeap();
+            List<Integer> reference = new ArrayList<>();
+            for (int i = random.nextInt(100); i > 0; i--) {
+                int key = 1 + random.nextInt(MAX_KEY);
+                heap.insert(key, null);
+                fibonacci.insert(key, null);
+                reference.add(key);
+            }
+            if (random.nextBoolean() && heap.size() > 0) { // trees, not just roots
+                heap.deleteMin();
+                fibonacci.deleteMin();
+                reference.remove(Collections.min(reference));
+            }
+
+            Heap.HeapNode[] nodes = heap.insertAll(keys, infos);
+            Heap.HeapNode[] withPayloads = heap.insertAllWithPayloads(keys, payloads);
+            FibonacciHeap.HeapNode[] fibonacciNodes = fibonacci.insertAll(keys, infos);
+            FibonacciHeap.HeapNode[] fibonacciPayloads = fibonacci.insertAllWithPayloads(keys, payloads);
+            if (nodes.length != n || withPayloads.length != n || fibonacciNodes.length != n || fibonacciPayloads.length != n) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (nodes[i].key != keys[i] || !nodes[i].info.equals(infos[i])
+                        || withPayloads[i].key != keys[i] || withPayloads[i].payload != payloads[i]
+                        || fibonacciNodes[i].key != keys[i] || !fibonacciNodes[i].info.equals(infos[i])
+                        || fibonacciPayloads[i].key != keys[i] || fibonacciPayloads[i].payload != payloads[i]) {
+                    return false;
+                }
+                reference.add(keys[i]);
+                reference.add(keys[i]);
+            }
+            Collections.sort(reference);
+            for (int key : reference) {
+                if (heap.findMin() == null || heap.findMin().key != key
+                        || fibonacci.findMin() == null || fibonacci.findMin().key != key) {
+                    return false;
+                }
+                heap.deleteMin();
+                fibonacci.deleteMin();
+            }
+            if (heap.size() != 0 || fibonacci.size() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * decreaseKeys on a random subset of the nodes of a heap with trees, in all four
+     * lazy modes: the heap's minimum is right afterwards and it drains in order.
+     * Some rounds decrease all of them to the same key 1.
+     */
+    private static boolean testDecreaseKeys(Random random) {
+        for (int round = 0; round < ROUNDS; round++) {
+            int mode = round % 4;
+            Heap heap = new Heap((mode & 1) != 0, (mode & 2) != 0);
+            int n = 2 + random.nextInt(1000);
+            Heap.HeapNode[] nodes = heap.insertAll(randomKeys(random, n));
+            Heap.HeapNode deleted = heap.findMin();
+            heap.deleteMin();
+            List<Heap.HeapNode> inHeap = new ArrayList<>();
+            for (Heap.HeapNode node : nodes) {
+                if (node != deleted) {
+                    inHeap.add(node);
+                }
+            }
+            Collections.shuffle(inHeap, random);
+
+            Heap.HeapNode[] toDecrease = inHeap.subList(0, random.nextInt(inHeap.size() + 1)).toArray(new Heap.HeapNode[0]);
+            int[] diffs = new int[toDecrease.length];
+            boolean sameKey = random.nextInt(4) == 0;
+            for (int i = 0; i < toDecrease.length; i++) {
+                int key = toDecrease[i].key;
+                diffs[i] = sameKey ? key - 1 : random.nextInt(key); // keys stay positive
+            }
+            heap.decreaseKeys(toDecrease, diffs);
+
+            List<Integer> reference = new ArrayList<>();
+            for (Heap.HeapNode node : inHeap) {
+                reference.add(node.key);
+            }
+            Collections.sort(reference);
+            if (heap.size() != reference.size()) {
+                return false;
+            }
+            for (int key : reference) {
+                if (heap.findMin() == null || heap.findMin().key != key) {
+                    return false;
+                }
+                heap.deleteMin();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * pollMany and pollManyKeys in random batches, some larger than the heap, between
+     * inserts and decreaseKeys, in all four lazy modes: every batch holds the next
+     * smallest keys in ascending order, and the heap stays valid for the next ones.
+     */
+    private static boolean testPollMany(Random random) {
+        for (int round = 0; round < ROUNDS; round++) {
+            int mode = round % 4;
+            Heap heap = new Heap((mode & 1) != 0, (mode & 2) != 0);
+            List<Integer> reference = new ArrayList<>();
+            List<Heap.HeapNode> nodes = new ArrayList<>();
+            Heap.HeapNode[] sink = new Heap.HeapNode[64];
+            int[] keySink = new int[64];
+            for (int step = 0; step < 100; step++) {
+                int choice = random.nextInt(4);
+                if (choice == 0) {
+                    for (int i = random.nextInt(50); i > 0; i--) {
+                        int key = 1 + random.nextInt(MAX_KEY);
+                        nodes.add(heap.insert(key, null));
+                        reference.add(key);
+                    }
+                } else if (choice == 1 && !nodes.isEmpty()) {
+                    Heap.HeapNode x = nodes.get(random.nextInt(nodes.size()));
+                    reference.remove((Integer) x.key);
+                    heap.decreaseKey(x, random.nextInt(x.key));
+                    reference.add(x.key);
+                } else {
+                    Collections.sort(reference);
+                    int k = random.nextInt(sink.length + 1);
+                    boolean keys = choice == 3;
+                    int count = keys ? heap.pollManyKeys(k, keySink) : heap.pollMany(k, sink);
+                    if (count != Math.min(k, reference.size())) {
+                        return false;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        int key = keys ? keySink[i] : sink[i].key;
+                        if (key != reference.get(i)) {
+                            return false;
+                        }
+                        if (!keys) {
+                            nodes.remove(sink[i]);
+                        }
+                    }
+                    reference.subList(0, count).clear();
+                    if (keys) { // the polled nodes are no longer known, decrease none of them
+                        nodes.clear();
+                    }
+                }
+                if (heap.size() != reference.size()) {
+                    return false;
+                }
+            }
+            Collections.sort(reference);
+            for (int key : reference) {
+                if (heap.findMin() == null || heap.findMin().key != key) {
+                    return false;
+                }
+                heap.deleteMin();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Two heaps of the same random keys, one consolidating its roots in parallel
+     * and one sequentially, in all four lazy modes: the consolidation links as
+     * often and leaves as many trees, and the heaps drain in the same order.
+     */
+    private static boolean testParallelConsolidate(Random random) {
+        for (int round = 0; round < 8; round++) {
+            int mode = round % 4;
+            Heap parallel = new Heap((mode & 1) != 0, (mode & 2) != 0);
+            Heap sequential = new Heap((mode & 1) != 0, (mode & 2) != 0);
+            parallel.setParallelConsolidateThreshold(64);
+            sequential.setParallelConsolidateThreshold(Integer.MAX_VALUE);
+            int[] keys = randomKeys(random, 10000 + random.nextInt(30000));
+            // insertAll consolidates the new roots at once, or the first deleteMin with lazy melds
+            parallel.insertAll(keys);
+            sequential.insertAll(keys);
+            if ((mode & 1) != 0) {
+                parallel.deleteMin();
+                sequential.deleteMin();
+            }
+            if (parallel.totalLinks() != sequential.totalLinks() || parallel.numTrees() != sequential.numTrees()
+                    || parallel.size() != sequential.size()) {
+                return false;
+            }
+            int previous = 0;
+            while (sequential.size() > 0) {
+                int key = sequential.findMin().key;
+                if (key < previous || parallel.findMin() == null || parallel.findMin().key != key) {
+                    return false;
+                }
+                previous = key;
+                parallel.deleteMin();
+                sequential.deleteMin();
+            }
+            if (parallel.size() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * meldAll of random heaps, some empty, with nulls and repeated heaps among them,
+     * in all four lazy modes: the first non null heap gets every item, the others
+     * are left empty, and the other heaps' nodes can still be decreased.
+     */
+    private static boolean testMeldAll(Random random) {
+        if (Heap.meldAll() != null || Heap.meldAll(null, null) != null) {
+            return false;
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            int mode = round % 4;
+            Heap[] heaps = new Heap[1 + random.nextInt(10)];
+            List<Heap.HeapNode> nodes = new ArrayList<>();
+            for (int i = 0; i < heaps.length; i++) {
+                int choice = random.nextInt(5);
+                if (choice == 0) {
+                    continue; // null
+                } else if (choice == 1 && i > 0) {
+                    heaps[i] = heaps[random.nextInt(i)]; // repeated, maybe null
+                    continue;
+                }
+                heaps[i] = new Heap((mode & 1) != 0, (mode & 2) != 0);
+                int n = random.nextInt(4) == 0 ? 0 : random.nextInt(200);
+                for (Heap.HeapNode node : heaps[i].insertAll(randomKeys(random, n))) {
+                    nodes.add(node);
+                }
+                if (n > 1) { // trees, not just roots
+                    nodes.remove(heaps[i].findMin());
+                    heaps[i].deleteMin();
+                }
+            }
+            Heap first = null;
+            for (Heap heap : heaps) {
+                if (heap != null) {
+                    first = heap;
+                    break;
+                }
+            }
+            Heap result = Heap.meldAll(heaps);
+            if (result != first) {
+                return false;
+            }
+            if (result == null) {
+                continue;
+            }
+            for (Heap heap : heaps) {
+                if (heap != null && heap != result && heap.size() != 0) {
+                    return false;
+                }
+            }
+            for (Heap.HeapNode node : nodes) {
+                if (random.nextBoolean()) {
+                    result.decreaseKey(node, random.nextInt(node.key));
+                }
+            }
+            List<Integer> reference = new ArrayList<>();
+            for (Heap.HeapNode node : nodes) {
+                reference.add(node.key);
+            }
+            Collections.sort(reference);
+            if (result.size() != reference.size()) {
+                return false;
+            }
+            for (int key : reference) {
+                if (result.findMin() == null || result.findMin().key != key) {
+                    return false;
+                }
+                result.deleteMin();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns n random keys from 1 to MAX_KEY, repeats included
+     */
+    private static int[] randomKeys(Random random, int n) {
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = 1 + random.nextInt(MAX_KEY);
+        }
+        return keys;
+    }
+}
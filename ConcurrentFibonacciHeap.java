@@ -0,0 +1,185 @@
+/**
+ * ConcurrentFibonacciHeap
+ *
+ * A thread safe Fibonacci heap over positive integers made of striped shards,
+ * each shard a Heap (lazyMelds=true, lazyDecreaseKeys=true) behind its own lock.
+ * Inserting threads spread over the shards, deleteMin combines the shards' minima:
+ * in strict mode it deletes the global minimum, in relaxed mode it deletes the
+ * minimum of the shard that looked smallest, which may have been beaten meanwhile.
+ *
+ */
+public class ConcurrentFibonacciHeap
+{
+	public final boolean strict;
+	private final LockedHeap[] shards;
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 * constructor of an empty heap with numShards shards
+	 */
+	public ConcurrentFibonacciHeap(int numShards, boolean strict)
+	{
+		this.strict = strict;
+		this.shards = new LockedHeap[Math.max(numShards, 1)];
+		for (int i = 0; i < shards.length; i++)
+			shards[i] = new LockedHeap();
+	}
+
+	/**
+	 * pre: key > 0
+	 *
+	 * Insert (key,info) into the heap.
+	 * The thread's home shard is used unless it is busy, then the next free one.
+	 * No handle is returned: a node may only be changed under its shard's lock,
+	 * so the items can't be decreased or deleted by handle.
+	 *
+	 */
+	public void insert(int key, String info)
+	{
+		int home = (int) (Thread.currentThread().getId() % shards.length);
+		// try the shards once around starting at home, then wait for home
+		for (int i = 0; i < shards.length; i++) {
+			LockedHeap shard = shards[(home + i) % shards.length];
+			if (shard.lock.tryLock()) {
+				try {
+					shard.insert(key, info);
+					return;
+				} finally {
+					shard.lock.unlock();
+				}
+			}
+		}
+		LockedHeap shard = shards[home];
+		shard.lock.lock();
+		try {
+			shard.insert(key, info);
+		} finally {
+			shard.lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * Return the minimal key, Integer.MAX_VALUE if empty.
+	 * Concurrent operations may change the minimum right after it is read.
+	 *
+	 */
+	public int findMinKey()
+	{
+		int minKey = Integer.MAX_VALUE;
+		for (LockedHeap shard : shards)
+			minKey = Math.min(minKey, shard.minKey);
+		return minKey;
+	}
+
+	/**
+	 *
+	 * Delete the minimal item and return its HeapNode, null if empty.
+	 *
+	 */
+	public Heap.HeapNode deleteMin()
+	{
+		return strict ? this.deleteMinStrict() : this.deleteMinRelaxed();
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the heap
+	 *
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (LockedHeap shard : shards)
+			size += shard.size;
+		return size;
+	}
+
+	/**
+	 *
+	 * Move all the items to a new Heap (lazyMelds=true, lazyDecreaseKeys=true)
+	 * by lazily melding the shards into it, and return it.
+	 *
+	 */
+	public Heap drain()
+	{
+		Heap heap = new Heap(true, true);
+		this.lockAll();
+		try {
+			for (LockedHeap shard : shards)
+				heap.meld(shard.drain());
+		} finally {
+			this.unlockAll();
+		}
+		return heap;
+	}
+
+
+	/* #################################################################################
+	//                               help methods
+	#####################################################################################*/
+
+	/**
+	 * lock every shard, always in the same order
+	 */
+	private void lockAll()
+	{
+		for (LockedHeap shard : shards)
+			shard.lock.lock();
+	}
+
+	/**
+	 * unlock every shard
+	 */
+	private void unlockAll()
+	{
+		for (int i = shards.length - 1; i >= 0; i--)
+			shards[i].lock.unlock();
+	}
+
+	/**
+	 * delete the global minimum while holding all the shards' locks
+	 */
+	private Heap.HeapNode deleteMinStrict()
+	{
+		this.lockAll();
+		try {
+			LockedHeap minShard = null;
+			for (LockedHeap shard : shards) {
+				if (shard.size > 0 && (minShard == null || shard.minKey < minShard.minKey))
+					minShard = shard;
+			}
+			return minShard == null ? null : minShard.deleteMin();
+		} finally {
+			this.unlockAll();
+		}
+	}
+
+	/**
+	 * delete the minimum of the shard with the smallest published minimum,
+	 * locking that shard only. retries while that shard turns out to be empty
+	 */
+	private Heap.HeapNode deleteMinRelaxed()
+	{
+		while (true) {
+			LockedHeap minShard = null;
+			for (LockedHeap shard : shards) {
+				if (shard.size > 0 && (minShard == null || shard.minKey < minShard.minKey))
+					minShard = shard;
+			}
+			if (minShard == null)
+				return null;
+			minShard.lock.lock();
+			try {
+				Heap.HeapNode node = minShard.deleteMin();
+				if (node != null)
+					return node;
+			} finally {
+				minShard.lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,205 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ConcurrentTest {
+
+    static final int THREADS = 4;
+    static final int ITEMS_PER_THREAD = 5000;
+    static final int ITEMS = THREADS * ITEMS_PER_THREAD;
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] failedTests = new String[5];
+        int failCount = 0;
+        int testCount = 5;
+
+        if (!testConcurrentFibonacciHeap(true)) {
+            failedTests[failCount++] = "ConcurrentFibonacciHeap (strict): concurrent inserts and deleteMins";
+        }
+
+        if (!testConcurrentFibonacciHeap(false)) {
+            failedTests[failCount++] = "ConcurrentFibonacciHeap (relaxed): concurrent inserts and deleteMins";
+        }
+
+        if (!testMultiQueue(THREADS, 2)) {
+            failedTests[failCount++] = "MultiQueue: concurrent inserts and deleteMins";
+        }
+
+        if (!testMultiQueue(1, 1)) {
+            failedTests[failCount++] = "MultiQueue (2 heaps): contended inserts and deleteMins";
+        }
+
+        if (!testOfferBuffer()) {
+            failedTests[failCount++] = "FibonacciHeap: offer from many threads";
+        }
+
+        System.out.println("Passed: " + (testCount - failCount) + " / " + testCount);
+        if (failCount > 0) {
+            System.out.println("Failed tests:");
+            for (int i = 0; i < failCount; i++) {
+                System.out.println("  - " + failedTests[i]);
+            }
+        } else {
+            System.out.println("All tests passed!");
+        }
+    }
+
+    /**
+     * Every thread inserts its own keys in random order, deleting the minimum after
+     * a random third of the inserts, and drain() takes the rest in order, so every
+     * key from 1 to ITEMS must come out exactly once.
+     */
+    private static boolean testConcurrentFibonacciHeap(boolean strict) throws InterruptedException {
+        ConcurrentFibonacciHeap heap = new ConcurrentFibonacciHeap(THREADS, strict);
+        AtomicIntegerArray seen = new AtomicIntegerArray(ITEMS + 1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            int[] keys = shuffledKeys(t * ITEMS_PER_THREAD + 1, random);
+            threads[t] = new Thread(() -> {
+                for (int key : keys) {
+                    heap.insert(key, null);
+                    if (random.nextInt(3) == 0) {
+                        deleteInto(heap.deleteMin(), seen);
+                    }
+                }
+            });
+        }
+        if (!runAll(threads)) {
+            return false;
+        }
+        Heap rest = heap.drain();
+        int previous = 0;
+        while (rest.size() > 0) {
+            Heap.HeapNode node = rest.findMin();
+            if (node.key < previous) {
+                return false;
+            }
+            previous = node.key;
+            deleteInto(node, seen);
+            rest.deleteMin();
+        }
+        return heap.size() == 0 && heap.deleteMin() == null && allSeenOnce(seen);
+    }
+
+    /**
+     * The same random inserts and deleteMins on a MultiQueue sized for numThreads
+     * threads with c heaps each, while THREADS threads run. With fewer heaps than threads
+     * the inserts find the sampled heaps busy and wait for a lock. The rest is
+     * deleted afterwards, and the rank errors stay below the number of heaps.
+     */
+    private static boolean testMultiQueue(int numThreads, int c) throws InterruptedException {
+        MultiQueue queue = new MultiQueue(numThreads, c, true);
+        AtomicIntegerArray seen = new AtomicIntegerArray(ITEMS + 1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            int[] keys = shuffledKeys(t * ITEMS_PER_THREAD + 1, random);
+            threads[t] = new Thread(() -> {
+                for (int key : keys) {
+                    queue.insert(key, null);
+                    if (random.nextInt(3) == 0) {
+                        deleteInto(queue.deleteMin(), seen);
+                    }
+                }
+            });
+        }
+        if (!runAll(threads)) {
+            return false;
+        }
+        while (deleteInto(queue.deleteMin(), seen) == 1) {
+            // delete the rest
+        }
+        int numHeaps = Math.max(numThreads * c, 2);
+        return queue.size() == 0 && allSeenOnce(seen)
+                && queue.averageRankError() >= 0 && queue.maxRankError() < numHeaps;
+    }
+
+    /**
+     * Threads offer while the owner keeps inserting, then the owner drains in order.
+     */
+    private static boolean testOfferBuffer() throws InterruptedException {
+        FibonacciHeap heap = new FibonacciHeap();
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int first = t * ITEMS_PER_THREAD + 1;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+                    heap.offer(first + i, null);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        // the owner's own operations run between the offers
+        for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+            heap.delete(heap.insert(ITEMS + 1, null));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int key = 1; key <= ITEMS; key++) {
+            if (heap.findMin() == null || heap.findMin().key != key) {
+                return false;
+            }
+            heap.deleteMin();
+        }
+        return heap.size() == 0;
+    }
+
+    /**
+     * returns the ITEMS_PER_THREAD keys from first in random order
+     */
+    static int[] shuffledKeys(int first, Random random) {
+        int[] keys = new int[ITEMS_PER_THREAD];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = first + i;
+        }
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = temp;
+        }
+        return keys;
+    }
+
+    /**
+     * marks the key of node as seen, returns 1 if there was a node
+     */
+    static int deleteInto(Heap.HeapNode node, AtomicIntegerArray seen) {
+        if (node == null) {
+            return 0;
+        }
+        seen.incrementAndGet(node.key);
+        return 1;
+    }
+
+    /**
+     * returns true if every key from 1 was seen exactly once
+     */
+    static boolean allSeenOnce(AtomicIntegerArray seen) {
+        for (int key = 1; key < seen.length(); key++) {
+            if (seen.get(key) != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * starts and joins the threads, returns false if any of them threw
+     */
+    static boolean runAll(Thread[] threads) throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger();
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> failures.incrementAndGet());
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return failures.get() == 0;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * DoubleKeyHeap
+ *
+ * An implementation of Fibonacci heap over double keys (not NaN) with a value of any type,
+ * with the possibility of not performing lazy melds and
+ * the possibility of not performing lazy decrease keys, as in Heap.
+ * The keys are compared as primitives, see AbstractKeyHeap for the heap itself.
+ *
+ */
+public class DoubleKeyHeap<V> extends AbstractKeyHeap<DoubleKeyHeap.HeapNode<V>>
+{
+    /* ###############################################################################
+    //                               main methods
+    ############################################################################### */
+
+    /**
+     *
+     * Constructor to initialize an empty heap.
+     *
+     */
+    public DoubleKeyHeap(boolean lazyMelds, boolean lazyDecreaseKeys)
+    {
+        super(lazyMelds, lazyDecreaseKeys);
+    }
+
+    /**
+     *
+     * Insert (key,value) into the heap and return the newly generated HeapNode.
+     *
+     */
+    public HeapNode<V> insert(double key, V value)
+    {
+        return this.insertNode(new HeapNode<>(key, value));
+    }
+
+    /**
+     *
+     * pre: diff >= 0
+     *
+     * Decrease the key of x by diff and fix the heap.
+     *
+     */
+    public void decreaseKey(HeapNode<V> x, double diff)
+    {
+        x.key -= diff;
+        this.keyDecreased(x);
+    }
+
+    /**
+     *
+     * Meld the heap with heap2
+     * pre: heap2.lazyMelds = this.lazyMelds AND heap2.lazyDecreaseKeys = this.lazyDecreaseKeys
+     *
+     */
+    public void meld(DoubleKeyHeap<V> heap2)
+    {
+        this.meldHeap(heap2);
+    }
+
+
+    /* ###############################################################################
+    //                               HELP METHODS
+    ############################################################################### */
+
+    /**
+     * returns true if the key of a is smaller than the key of b
+     */
+    protected boolean less(HeapNode<V> a, HeapNode<V> b)
+    {
+        return a.key < b.key;
+    }
+
+
+    /**
+     * Class implementing a node in a DoubleKeyHeap.
+     *
+     */
+    public static class HeapNode<V> extends AbstractKeyHeap.Node<HeapNode<V>>{
+        public double key;
+        public V value;
+
+        /**
+         * constructor with key and value
+         */
+        public HeapNode(double key, V value)
+        {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+public class EngineTest {
+
+    private static final int TRACE_LENGTH = 10000;
+    private static final int MAX_KEY = 100000;
+
+    public static void main(String[] args) {
+        String[] engines = PriorityQueues.names();
+        String[] failedTests = new String[engines.length];
+        int failCount = 0;
+        int testCount = 0;
+
+        for (String engine : engines) {
+            testCount++;
+            if (!testEngineAgainstPriorityQueue(engine, new Random(engine.hashCode()))) {
+                failedTests[failCount++] = "Engine " + engine + ": random trace against java.util.PriorityQueue";
+            }
+        }
+
+        System.out.println("Passed: " + (testCount - failCount) + " / " + testCount);
+        if (failCount > 0) {
+            System.out.println("Failed tests:");
+            for (int i = 0; i < failCount; i++) {
+                System.out.println("  - " + failedTests[i]);
+            }
+        } else {
+            System.out.println("All tests passed!");
+        }
+    }
+
+    /**
+     * Runs inserts, decreaseKeys, deletes, deleteMins and melds on the named engine
+     * and on a java.util.PriorityQueue of the keys, comparing the minima and sizes.
+     * radix only gets keys above the last deleted minimum.
+     */
+    private static boolean testEngineAgainstPriorityQueue(String engine, Random random) {
+        return runTrace(PriorityQueues.create(engine), engine, engine.equals("radix"), random);
+    }
+
+    private static <H> boolean runTrace(AddressablePriorityQueue<H> queue, String engine, boolean monotone, Random random) {
+        PriorityQueue<Integer> reference = new PriorityQueue<>();
+        List<H> handles = new ArrayList<>(); // the items whose handles are known
+        int floor = 1; // the smallest key allowed, the last deleted minimum for radix
+        for (int op = 0; op < TRACE_LENGTH; op++) {
+            int choice = random.nextInt(10);
+            if (choice < 4 || handles.isEmpty()) {
+                int key = floor + random.nextInt(MAX_KEY);
+                handles.add(queue.insert(key, null));
+                reference.add(key);
+            } else if (choice < 6) {
+                H x = handles.get(random.nextInt(handles.size()));
+                int key = queue.key(x);
+                int diff = random.nextInt(key - floor + 1);
+                queue.decreaseKey(x, diff);
+                reference.remove(key);
+                reference.add(key - diff);
+            } else if (choice < 7) {
+                H x = handles.remove(random.nextInt(handles.size()));
+                reference.remove(queue.key(x));
+                queue.delete(x);
+            } else if (choice < 9) {
+                H min = queue.findMin();
+                if (min == null || queue.key(min) != reference.peek()) {
+                    return false;
+                }
+                if (monotone) {
+                    floor = Math.max(queue.key(min), 1);
+                }
+                handles.remove(min);
+                reference.poll();
+                queue.deleteMin();
+            } else {
+                @SuppressWarnings("unchecked")
+                AddressablePriorityQueue<H> other = (AddressablePriorityQueue<H>) PriorityQueues.create(engine);
+                List<H> otherHandles = new ArrayList<>();
+                for (int i = random.nextInt(20); i > 0; i--) {
+                    int key = floor + random.nextInt(MAX_KEY);
+                    otherHandles.add(other.insert(key, null));
+                    reference.add(key);
+                }
+                queue.meld(other);
+                handles.addAll(otherHandles); // other's handles stay valid in queue
+            }
+            if (queue.size() != reference.size() || queue.stats().size != reference.size()) {
+                return false;
+            }
+        }
+        // drain in order
+        while (!reference.isEmpty()) {
+            H min = queue.findMin();
+            if (min == null || queue.key(min) != reference.poll()) {
+                return false;
+            }
+            queue.deleteMin();
+        }
+        return queue.size() == 0 && queue.findMin() == null;
+    }
+}
@@ -1,16 +1,27 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
 
 /**
  * Experiments
  * 
- * Runs three experiments on four types of heaps:
+ * Runs four experiments on seven types of heaps by default:
  * 1. Binomial Heap (lazyMelds=false, lazyDecreaseKeys=false)
  * 2. Lazy Binomial Heap (lazyMelds=true, lazyDecreaseKeys=false)
  * 3. Fibonacci Heap (lazyMelds=true, lazyDecreaseKeys=true)
  * 4. Binomial Heap with Cutoffs (lazyMelds=false, lazyDecreaseKeys=true)
+ * 5. FibonacciHeap
+ * 6. PairingHeap
+ * 7. RankPairingHeap
+ * The heaps are PriorityQueues engines, chosen by name with -Dexperiments.engines.
+ * The runtimes are single cold runs, for comparing structural costs; Benchmarks
+ * measures warmed up times per operation. A trial's runtime is measured with
+ * System.nanoTime around its heap operations only: the handle arrays and the
+ * infos are built before the timer starts.
+ * The fourth, monotone experiment also runs on a RadixHeap.
  * 
  * n = 464,646
  */
@@ -21,13 +32,13 @@ class OperationMetrics {
     long prevHeapifyCosts;
     long maxOperationCost = 0;
     
-    public void startTracking(Heap heap) {
+    public void startTracking(AddressablePriorityQueue<?> heap) {
         prevLinks = heap.totalLinks();
         prevCuts = heap.totalCuts();
         prevHeapifyCosts = heap.totalHeapifyCosts();
     }
     
-    public void recordOperation(Heap heap) {
+    public void recordOperation(AddressablePriorityQueue<?> heap) {
         long currentLinks = heap.totalLinks();
         long currentCuts = heap.totalCuts();
         long currentHeapifyCosts = heap.totalHeapifyCosts();
@@ -49,7 +60,7 @@ class OperationMetrics {
 }
 
 class ExperimentResults {
-    long totalRuntime;
+    long totalRuntime;  // ns
     long totalLinks;
     long totalCuts;
     long totalHeapifyCosts;
@@ -71,54 +82,56 @@ class ExperimentResults {
 public class Experiments {
     
     static final int N = 464646;  // Full size for experiments
-    static final int NUM_HEAP_TYPES = 4;
     static final int NUM_TRIALS = 20;  // Run each test 20 times
+    static final String[] ITEM_INFOS = generateInfos(N);  // "Item_" + key, built outside the timed trials
     
-    // Heap types
-    static final int BINOMIAL_HEAP = 0;           // lazyMelds=false, lazyDecreaseKeys=false
-    static final int LAZY_BINOMIAL_HEAP = 1;      // lazyMelds=true, lazyDecreaseKeys=false
-    static final int FIBONACCI_HEAP = 2;          // lazyMelds=true, lazyDecreaseKeys=true
-    static final int BINOMIAL_WITH_CUTOFFS = 3;   // lazyMelds=false, lazyDecreaseKeys=true
+    // Heap types, by PriorityQueues engine name. Other engines can be chosen with
+    // -Dexperiments.engines=name,name,... (experiments 1-3 are not monotone, so not radix)
+    static final String DEFAULT_ENGINES = "binomial,lazy-binomial,fibonacci,binomial-cutoffs,fibonacci-heap,pairing,rank-pairing";
+    static final String[] ENGINES = System.getProperty("experiments.engines", DEFAULT_ENGINES).split(",");
+    static final int NUM_HEAP_TYPES = ENGINES.length;
     
-    static String[] heapTypeNames = {
-        "Binomial Heap (lazy=false, decrease=false)",
-        "Lazy Binomial Heap (lazy=true, decrease=false)",
-        "Fibonacci Heap (lazy=true, decrease=true)",
-        "Binomial with Cutoffs (lazy=false, decrease=true)"
-    };
+    static String[] heapTypeNames = new String[NUM_HEAP_TYPES];
+    static {
+        for (int heapType = 0; heapType < NUM_HEAP_TYPES; heapType++)
+            heapTypeNames[heapType] = PriorityQueues.describe(ENGINES[heapType]);
+    }
+    
+    /**
+     * Create an empty heap of the given type
+     */
+    static AddressablePriorityQueue<?> newHeap(int heapType) {
+        return PriorityQueues.create(ENGINES[heapType]);
+    }
+    
+    /**
+     * Create an array for length handles of a heap
+     */
+    @SuppressWarnings("unchecked")
+    static <H> H[] newHandles(int length) {
+        return (H[]) new Object[length];
+    }
     
     /**
      * Run a single trial of experiment 1
      */
     static ExperimentResults runExperiment1Trial(int[] perm, int heapType) {
-        boolean lazyMelds;
-        boolean lazyDecreaseKeys;
-        
-        if (heapType == BINOMIAL_HEAP) {
-            lazyMelds = false;
-            lazyDecreaseKeys = false;
-        } else if (heapType == LAZY_BINOMIAL_HEAP) {
-            lazyMelds = true;
-            lazyDecreaseKeys = false;
-        } else if (heapType == FIBONACCI_HEAP) {
-            lazyMelds = true;
-            lazyDecreaseKeys = true;
-        } else { // BINOMIAL_WITH_CUTOFFS
-            lazyMelds = false;
-            lazyDecreaseKeys = true;
-        }
-        
-        long startTime = System.currentTimeMillis();
-        
-        Heap heap = new Heap(lazyMelds, lazyDecreaseKeys);
-        Heap.HeapNode[] pointers = new Heap.HeapNode[N + 1];
+        return runExperiment1Trial(perm, newHeap(heapType));
+    }
+    
+    /**
+     * Run a single trial of experiment 1 on the given empty heap
+     */
+    static <H> ExperimentResults runExperiment1Trial(int[] perm, AddressablePriorityQueue<H> heap) {
+        H[] pointers = newHandles(N + 1);
         OperationMetrics metrics = new OperationMetrics();
+        long startTime = System.nanoTime();
         
         // Insert N items in random order
         for (int i = 0; i < N; i++) {
             int key = perm[i];
             metrics.startTracking(heap);
-            Heap.HeapNode node = heap.insert(key, "Item_" + key);
+            H node = heap.insert(key, ITEM_INFOS[key]);
             metrics.recordOperation(heap);
             pointers[key] = node;
         }
@@ -137,11 +150,10 @@ public class Experiments {
         heap.deleteMin();
         metrics.recordOperation(heap);
         
-        long endTime = System.currentTimeMillis();
-        long runtimeMs = endTime - startTime;
+        long runtimeNanos = System.nanoTime() - startTime;
         
         return new ExperimentResults(
-            runtimeMs,
+            runtimeNanos,
             heap.totalLinks(),
             heap.totalCuts(),
             heap.totalHeapifyCosts(),
@@ -189,7 +201,7 @@ public class Experiments {
                 ExperimentResults lastResults = runExperiment1Trial(perm, heapType);
                 
                 // Report average metrics
-                System.out.println("  Average Runtime: " + String.format("%.2f", totalRuntime / (double) NUM_TRIALS) + " ms");
+                System.out.println("  Average Runtime: " + String.format("%.2f", totalRuntime / 1e6 / NUM_TRIALS) + " ms");
                 System.out.println("  Average Total Links: " + String.format("%.0f", totalLinks / (double) NUM_TRIALS));
                 System.out.println("  Average Total Cuts: " + String.format("%.0f", totalCuts / (double) NUM_TRIALS));
                 System.out.println("  Average Heapify Costs: " + String.format("%.0f", totalHeapifyCosts / (double) NUM_TRIALS));
@@ -209,35 +221,23 @@ public class Experiments {
      * Run a single trial of experiment 2
      */
     static ExperimentResults runExperiment2Trial(int[] perm, int heapType) {
-        boolean lazyMelds;
-        boolean lazyDecreaseKeys;
-        
-        if (heapType == BINOMIAL_HEAP) {
-            lazyMelds = false;
-            lazyDecreaseKeys = false;
-        } else if (heapType == LAZY_BINOMIAL_HEAP) {
-            lazyMelds = true;
-            lazyDecreaseKeys = false;
-        } else if (heapType == FIBONACCI_HEAP) {
-            lazyMelds = true;
-            lazyDecreaseKeys = true;
-        } else { // BINOMIAL_WITH_CUTOFFS
-            lazyMelds = false;
-            lazyDecreaseKeys = true;
-        }
-        
-        long startTime = System.currentTimeMillis();
-        
-        Heap heap = new Heap(lazyMelds, lazyDecreaseKeys);
-        Heap.HeapNode[] pointers = new Heap.HeapNode[N + 1];
+        return runExperiment2Trial(perm, newHeap(heapType));
+    }
+    
+    /**
+     * Run a single trial of experiment 2 on the given empty heap
+     */
+    static <H> ExperimentResults runExperiment2Trial(int[] perm, AddressablePriorityQueue<H> heap) {
+        H[] pointers = newHandles(N + 1);
         boolean[] deleted = new boolean[N + 1];
         OperationMetrics metrics = new OperationMetrics();
+        long startTime = System.nanoTime();
         
         // Insert N items in random order
         for (int i = 0; i < N; i++) {
             int key = perm[i];
             metrics.startTracking(heap);
-            Heap.HeapNode node = heap.insert(key, "Item_" + key);
+            H node = heap.insert(key, ITEM_INFOS[key]);
             metrics.recordOperation(heap);
             pointers[key] = node;
         }
@@ -260,7 +260,7 @@ public class Experiments {
             
             if (maxKey > 0 && pointers[maxKey] != null) {
                 metrics.startTracking(heap);
-                heap.decreaseKey(pointers[maxKey], pointers[maxKey].key);
+                heap.decreaseKey(pointers[maxKey], heap.key(pointers[maxKey]));
                 metrics.recordOperation(heap);
                 deleted[maxKey] = true;
                 itemsToDecrease--;
@@ -277,11 +277,10 @@ public class Experiments {
             metrics.recordOperation(heap);
         }
         
-        long endTime = System.currentTimeMillis();
-        long runtimeMs = endTime - startTime;
+        long runtimeNanos = System.nanoTime() - startTime;
         
         return new ExperimentResults(
-            runtimeMs,
+            runtimeNanos,
             heap.totalLinks(),
             heap.totalCuts(),
             heap.totalHeapifyCosts(),
@@ -330,7 +329,7 @@ public class Experiments {
                 ExperimentResults lastResults = runExperiment2Trial(perm, heapType);
                 
                 // Report average metrics
-                System.out.println("  Average Runtime: " + String.format("%.2f", totalRuntime / (double) NUM_TRIALS) + " ms");
+                System.out.println("  Average Runtime: " + String.format("%.2f", totalRuntime / 1e6 / NUM_TRIALS) + " ms");
                 System.out.println("  Average Total Links: " + String.format("%.0f", totalLinks / (double) NUM_TRIALS));
                 System.out.println("  Average Total Cuts: " + String.format("%.0f", totalCuts / (double) NUM_TRIALS));
                 System.out.println("  Average Heapify Costs: " + String.format("%.0f", totalHeapifyCosts / (double) NUM_TRIALS));
@@ -350,35 +349,23 @@ public class Experiments {
      * Run a single trial of experiment 3
      */
     static ExperimentResults runExperiment3Trial(int[] perm, int heapType, int numDecreases) {
-        boolean lazyMelds;
-        boolean lazyDecreaseKeys;
-        
-        if (heapType == BINOMIAL_HEAP) {
-            lazyMelds = false;
-            lazyDecreaseKeys = false;
-        } else if (heapType == LAZY_BINOMIAL_HEAP) {
-            lazyMelds = true;
-            lazyDecreaseKeys = false;
-        } else if (heapType == FIBONACCI_HEAP) {
-            lazyMelds = true;
-            lazyDecreaseKeys = true;
-        } else { // BINOMIAL_WITH_CUTOFFS
-            lazyMelds = false;
-            lazyDecreaseKeys = true;
-        }
-        
-        long startTime = System.currentTimeMillis();
-        
-        Heap heap = new Heap(lazyMelds, lazyDecreaseKeys);
-        Heap.HeapNode[] pointers = new Heap.HeapNode[N + 1];
+        return runExperiment3Trial(perm, numDecreases, newHeap(heapType));
+    }
+    
+    /**
+     * Run a single trial of experiment 3 on the given empty heap
+     */
+    static <H> ExperimentResults runExperiment3Trial(int[] perm, int numDecreases, AddressablePriorityQueue<H> heap) {
+        H[] pointers = newHandles(N + 1);
         boolean[] deleted = new boolean[N + 1];
         OperationMetrics metrics = new OperationMetrics();
+        long startTime = System.nanoTime();
         
         // Insert N items in random order
         for (int i = 0; i < N; i++) {
             int key = perm[i];
             metrics.startTracking(heap);
-            Heap.HeapNode node = heap.insert(key, "Item_" + key);
+            H node = heap.insert(key, ITEM_INFOS[key]);
             metrics.recordOperation(heap);
             pointers[key] = node;
         }
@@ -394,7 +381,7 @@ public class Experiments {
         for (int i = N; i > 0 && decreasedCount < numDecreases; i--) {
             if (!deleted[i] && pointers[i] != null) {
                 metrics.startTracking(heap);
-                heap.decreaseKey(pointers[i], pointers[i].key);
+                heap.decreaseKey(pointers[i], heap.key(pointers[i]));
                 metrics.recordOperation(heap);
                 decreasedCount++;
             }
@@ -405,11 +392,10 @@ public class Experiments {
         heap.deleteMin();
         metrics.recordOperation(heap);
         
-        long endTime = System.currentTimeMillis();
-        long runtimeMs = endTime - startTime;
+        long runtimeNanos = System.nanoTime() - startTime;
         
         return new ExperimentResults(
-            runtimeMs,
+            runtimeNanos,
             heap.totalLinks(),
             heap.totalCuts(),
             heap.totalHeapifyCosts(),
@@ -460,7 +446,7 @@ public class Experiments {
                 ExperimentResults lastResults = runExperiment3Trial(perm, heapType, numDecreases);
                 
                 // Report average metrics
-                System.out.println("  Average Runtime: " + String.format("%.2f", totalRuntime / (double) NUM_TRIALS) + " ms");
+                System.out.println("  Average Runtime: " + String.format("%.2f", totalRuntime / 1e6 / NUM_TRIALS) + " ms");
                 System.out.println("  Average Total Links: " + String.format("%.0f", totalLinks / (double) NUM_TRIALS));
                 System.out.println("  Average Total Cuts: " + String.format("%.0f", totalCuts / (double) NUM_TRIALS));
                 System.out.println("  Average Heapify Costs: " + String.format("%.0f", totalHeapifyCosts / (double) NUM_TRIALS));
@@ -476,6 +462,188 @@ public class Experiments {
         }
     }
     
+    /**
+     * Generate a monotone trace like Dijkstra's: insert items 0..n-1 with random keys
+     * in [1, n], then until the heap is empty delete the min m and decrease the key
+     * of a random item to a random key in [m, key] if its key is above m.
+     * Returns {keys, opItems, opDiffs} where an op is a deleteMin when its item is -1,
+     * otherwise decreaseKey(item, diff). An item whose key is above the last deleted
+     * min was never deleted, so the trace is valid for every heap however they break ties.
+     */
+    static int[][] generateMonotoneTrace(int n) {
+        Random random = new Random();
+        int[] keys = new int[n];
+        int[] itemKeys = new int[n];
+        RadixHeap reference = new RadixHeap(n);
+        for (int i = 0; i < n; i++) {
+            keys[i] = 1 + random.nextInt(n);
+            itemKeys[i] = keys[i];
+            reference.insert(keys[i]); // the handles are 0..n-1, the items
+        }
+        int[] opItems = new int[2 * n];
+        int[] opDiffs = new int[2 * n];
+        int numOps = 0;
+        while (reference.size() > 0) {
+            int m = reference.key(reference.findMin());
+            reference.deleteMin();
+            opItems[numOps++] = -1;
+            int item = random.nextInt(n);
+            if (itemKeys[item] > m) {
+                int diff = 1 + random.nextInt(itemKeys[item] - m);
+                reference.decreaseKey(item, diff);
+                itemKeys[item] -= diff;
+                opItems[numOps] = item;
+                opDiffs[numOps++] = diff;
+            }
+        }
+        return new int[][] { keys, Arrays.copyOf(opItems, numOps), Arrays.copyOf(opDiffs, numOps) };
+    }
+    
+    /**
+     * Run a single trial of experiment 4 on a heap of the given type
+     */
+    static ExperimentResults runExperiment4Trial(int[][] trace, int heapType) {
+        return runExperiment4Trial(trace, newHeap(heapType));
+    }
+    
+    /**
+     * Run a single trial of experiment 4 on the given empty heap
+     */
+    static <H> ExperimentResults runExperiment4Trial(int[][] trace, AddressablePriorityQueue<H> heap) {
+        int[] keys = trace[0];
+        int[] opItems = trace[1];
+        int[] opDiffs = trace[2];
+        
+        H[] pointers = newHandles(keys.length);
+        OperationMetrics metrics = new OperationMetrics();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < keys.length; i++) {
+            metrics.startTracking(heap);
+            pointers[i] = heap.insert(keys[i], null);
+            metrics.recordOperation(heap);
+        }
+        for (int op = 0; op < opItems.length; op++) {
+            metrics.startTracking(heap);
+            if (opItems[op] < 0)
+                heap.deleteMin();
+            else
+                heap.decreaseKey(pointers[opItems[op]], opDiffs[op]);
+            metrics.recordOperation(heap);
+        }
+        
+        long runtimeNanos = System.nanoTime() - startTime;
+        return new ExperimentResults(
+            runtimeNanos,
+            heap.totalLinks(),
+            heap.totalCuts(),
+            heap.totalHeapifyCosts(),
+            metrics.getMaxOperationCost(),
+            heap.numTrees(),
+            heap.size()
+        );
+    }
+    
+    /**
+     * Run a single trial of experiment 4 on a RadixHeap, returns the runtime in ns
+     * and the number of bucket moves
+     */
+    static long[] runExperiment4RadixTrial(int[][] trace) {
+        int[] keys = trace[0];
+        int[] opItems = trace[1];
+        int[] opDiffs = trace[2];
+        
+        RadixHeap heap = new RadixHeap(keys.length);
+        int[] handles = new int[keys.length];
+        long startTime = System.nanoTime();
+        for (int i = 0; i < keys.length; i++)
+            handles[i] = heap.insert(keys[i]);
+        for (int op = 0; op < opItems.length; op++) {
+            if (opItems[op] < 0)
+                heap.deleteMin();
+            else
+                heap.decreaseKey(handles[opItems[op]], opDiffs[op]);
+        }
+        
+        long runtimeNanos = System.nanoTime() - startTime;
+        return new long[] { runtimeNanos, heap.totalMoves() };
+    }
+    
+    /**
+     * Experiment 4: a monotone Dijkstra-like trace of inserts, deleteMins and
+     * decreaseKeys on every heap type and on a RadixHeap
+     */
+    static void experiment4() {
+        System.out.println("\n========================================");
+        System.out.println("EXPERIMENT 4: Monotone Dijkstra-like Trace, Heaps vs RadixHeap");
+        System.out.println("n = " + N);
+        System.out.println("Number of trials: " + NUM_TRIALS);
+        System.out.println("========================================\n");
+        
+        // Generate the trace once
+        int[][] trace = generateMonotoneTrace(N);
+        System.out.println("Number of operations after the inserts: " + trace[1].length + "\n");
+        
+        for (int heapType = 0; heapType < NUM_HEAP_TYPES; heapType++) {
+            long totalRuntime = 0;
+            long totalLinks = 0;
+            long totalCuts = 0;
+            long totalHeapifyCosts = 0;
+            long totalMaxOpCost = 0;
+            
+            System.out.println("Testing " + heapTypeNames[heapType] + "...");
+            
+            try {
+                for (int trial = 0; trial < NUM_TRIALS; trial++) {
+                    ExperimentResults results = runExperiment4Trial(trace, heapType);
+                    totalRuntime += results.totalRuntime;
+                    totalLinks += results.totalLinks;
+                    totalCuts += results.totalCuts;
+                    totalHeapifyCosts += results.totalHeapifyCosts;
+                    totalMaxOpCost += results.maxOperationCost;
+                    System.out.print(".");
+                }
+                System.out.println();
+                
+                // Report average metrics
+                System.out.println("  Average Runtime: " + String.format("%.2f", totalRuntime / 1e6 / NUM_TRIALS) + " ms");
+                System.out.println("  Average Total Links: " + String.format("%.0f", totalLinks / (double) NUM_TRIALS));
+                System.out.println("  Average Total Cuts: " + String.format("%.0f", totalCuts / (double) NUM_TRIALS));
+                System.out.println("  Average Heapify Costs: " + String.format("%.0f", totalHeapifyCosts / (double) NUM_TRIALS));
+                System.out.println("  Average Max Operation Cost: " + String.format("%.0f", totalMaxOpCost / (double) NUM_TRIALS));
+                System.out.println();
+            } catch (Exception e) {
+                System.err.println("  ERROR: " + e.getMessage());
+                e.printStackTrace();
+                System.out.println();
+            }
+        }
+        
+        System.out.println("Testing Radix Heap...");
+        long totalRuntime = 0;
+        long totalMoves = 0;
+        for (int trial = 0; trial < NUM_TRIALS; trial++) {
+            long[] results = runExperiment4RadixTrial(trace);
+            totalRuntime += results[0];
+            totalMoves += results[1];
+            System.out.print(".");
+        }
+        System.out.println();
+        System.out.println("  Average Runtime: " + String.format("%.2f", totalRuntime / 1e6 / NUM_TRIALS) + " ms");
+        System.out.println("  Average Bucket Moves: " + String.format("%.0f", totalMoves / (double) NUM_TRIALS));
+        System.out.println();
+    }
+    
+    /**
+     * Generate the infos "Item_" + key of the keys 1 to n, indexed by key
+     */
+    static String[] generateInfos(int n) {
+        String[] infos = new String[n + 1];
+        for (int key = 1; key <= n; key++) {
+            infos[key] = "Item_" + key;
+        }
+        return infos;
+    }
+    
     /**
      * Generate a random permutation of numbers 1 to n
      */
@@ -502,7 +670,8 @@ public class Experiments {
         System.out.println("2 - Experiment 2: Insert + Delete Min + Delete Max");
         System.out.println("3 - Experiment 3: Insert + Delete Min + Decrease Max + Delete Min");
         System.out.println("4 - Run all experiments");
-        System.out.print("\nEnter your choice (1-4): ");
+        System.out.println("5 - Experiment 4: Monotone Dijkstra-like Trace, Heaps vs RadixHeap");
+        System.out.print("\nEnter your choice (1-5): ");
         
         Scanner scanner = new Scanner(System.in);
         String choice = scanner.nextLine().trim();
@@ -521,12 +690,17 @@ public class Experiments {
                 experiment1();
                 experiment2();
                 experiment3();
+                experiment4();
+                break;
+            case "5":
+                experiment4();
                 break;
             default:
                 System.out.println("Invalid choice. Running all experiments...");
                 experiment1();
                 experiment2();
                 experiment3();
+                experiment4();
         }
         
         System.out.println("==============================================");
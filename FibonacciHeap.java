@@ -1,17 +1,26 @@
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * FibonacciHeap
  *
  * An implementation of Fibonacci heap over positive integers.
+ * The heap is owned by a single thread, other threads may only offer new items.
  *
  */
-public class FibonacciHeap
+public class FibonacciHeap implements AddressablePriorityQueue<FibonacciHeap.HeapNode>
 {
 	private HeapNode min;
 	private HeapNode first; // pointer to the first tree's root
 	private int heapSize; // heap's size
 	private int numTrees;
-	private int linksCnt;
-	private int cutCnt;
+	private long linksCnt;
+	private long cutCnt;
+	private int numMarkedNodes;
+	private long consolidationsCnt;
+	private long deleteMinCnt;
+	private HeapNode[] rankBuckets; // consolidation workspace, indexed by rank
+	private int rankBucketsMaxSize; // the largest heap size rankBuckets can hold the ranks of
+	private final AtomicReference<HeapNode> insertBuffer = new AtomicReference<>(); // offered nodes, chained by next
 
 	/* #################################################################################
 	//                               main methods 
@@ -27,6 +36,9 @@ public class FibonacciHeap
 		numTrees = 0;
 		linksCnt = 0;
 		cutCnt = 0;		
+		numMarkedNodes = 0;
+		consolidationsCnt = 0;
+		deleteMinCnt = 0;
 	}
 	
 	/**
@@ -52,12 +64,95 @@ public class FibonacciHeap
 		return newNode; 
 	}
 
+	/**
+	 * pre: every key > 0, infos is null or as long as keys
+	 *
+	 * Insert all (keys[i],infos[i]) into the heap in one pass and return
+	 * the newly generated HeapNodes, in the order of keys.
+	 * The new nodes are spliced into the roots as a single chain.
+	 *
+	 */
+	public HeapNode[] insertAll(int[] keys, String[] infos) {
+		HeapNode[] nodes = new HeapNode[keys.length];
+		if (keys.length == 0)
+			return nodes;
+		HeapEvents.BulkOperation event = HeapEvents.BULK_OPERATION.isEnabled() ? new HeapEvents.BulkOperation() : null;
+		if (event != null)
+			event.begin();
+		// chain the new nodes while looking for their minimum
+		HeapNode chainMin = null;
+		HeapNode last = null;
+		for (int i = 0; i < keys.length; i++) {
+			HeapNode node = new HeapNode(keys[i], infos == null ? null : infos[i]);
+			nodes[i] = node;
+			if (last != null)
+				last.connectNext(node);
+			last = node;
+			if (chainMin == null || node.key < chainMin.key)
+				chainMin = node;
+		}
+		last.connectNext(nodes[0]);
+		this.addSingletonsToRoots(nodes[0], keys.length, chainMin);
+		if (event != null && event.shouldCommit()) {
+			event.heapClass = "FibonacciHeap";
+			event.operation = "insertAll";
+			event.items = keys.length;
+			event.heapSize = heapSize;
+			event.commit();
+		}
+		return nodes;
+	}
+	
+	/**
+	 * pre: key > 0
+	 *
+	 * Insert (key,info) into the heap and return the newly generated HeapNode.
+	 * Unlike all other methods, offer may be called by any thread: the new node
+	 * is pushed to a lock free stack without blocking, and the owner thread moves
+	 * the whole stack to the roots at once before its next operation.
+	 *
+	 */
+	public HeapNode offer(int key, String info) {
+		HeapNode newNode = new HeapNode(key, info);
+		HeapNode top;
+		do {
+			top = insertBuffer.get();
+			newNode.next = top;
+		} while (!insertBuffer.compareAndSet(top, newNode));
+		return newNode;
+	}
+	
+	/**
+	 * pre: every key > 0
+	 *
+	 * Insert all keys into the heap with null infos, see insertAll(int[], String[]).
+	 *
+	 */
+	public HeapNode[] insertAll(int[] keys) {
+		return this.insertAll(keys, null);
+	}
+
+	/**
+	 * pre: every key > 0, payloads is as long as keys
+	 *
+	 * Insert all keys into the heap with null infos and the int payloads[i] in
+	 * the nodes' payload field, see insertAll(int[], String[]).
+	 *
+	 */
+	public HeapNode[] insertAllWithPayloads(int[] keys, int[] payloads) {
+		HeapNode[] nodes = this.insertAll(keys, null);
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i].payload = payloads[i];
+		return nodes;
+	}
+
 	/**
 	 * 
 	 * Return the minimal HeapNode, null if empty.
 	 *
 	 */
 	public HeapNode findMin(){
+		this.drainInsertBuffer();
 		return min;		
 	}
 	
@@ -67,6 +162,8 @@ public class FibonacciHeap
 	 *
 	 */
 	public void deleteMin(){
+		this.drainInsertBuffer();
+		deleteMinCnt++;
 		this.genericDelete(min, true);
 	}
 	
@@ -79,6 +176,7 @@ public class FibonacciHeap
 	 */
 	public void decreaseKey(HeapNode x, int diff) 
 	{    
+		this.drainInsertBuffer();
 		this.decreaseKeyWithoutMinUpdate(x,  diff); // decrease x's key and initiate cuts accordingly
 		this.updateMin(x); // update the min node
 	}
@@ -90,6 +188,7 @@ public class FibonacciHeap
 	 */
 	public void delete(HeapNode x) 
 	{    		
+		this.drainInsertBuffer();
 		// if it's not the min, decrease its key to be the smallest without updating the min
 		if (x != min) {
 			int diff = (x.key - min.key) + 1;
@@ -106,6 +205,9 @@ public class FibonacciHeap
 	 */
 	public void meld(FibonacciHeap heap2)
 	{
+		this.drainInsertBuffer();
+		if (heap2 != null)
+			heap2.drainInsertBuffer();
 		// the other heap is empty so no changes required
 		if (heap2 == null || heap2.size() == 0)
 			return;
@@ -123,6 +225,9 @@ public class FibonacciHeap
 		numTrees += heap2.numTrees;
 		linksCnt += heap2.linksCnt;
 		cutCnt += heap2.cutCnt;
+		numMarkedNodes += heap2.numMarkedNodes;
+		consolidationsCnt += heap2.consolidationsCnt;
+		deleteMinCnt += heap2.deleteMinCnt;
 		
 		//connecting 'edges'
 		HeapNode lastNodeHeap2 = heap2.first.prev;
@@ -130,6 +235,27 @@ public class FibonacciHeap
 		lastNodeHeap2.connectNext(this.first);	
 	}
 
+	/**
+	 * 
+	 * Meld the heap with heap2, see meld(FibonacciHeap)
+	 * pre: heap2 is a FibonacciHeap
+	 *
+	 */
+	public void meld(AddressablePriorityQueue<HeapNode> heap2)
+	{
+		this.meld((FibonacciHeap) heap2);
+	}
+
+	/**
+	 * 
+	 * Return the key of x.
+	 *
+	 */
+	public int key(HeapNode x)
+	{
+		return x.key;
+	}
+
 	/**
 	 * 
 	 * Return the number of elements in the heap
@@ -137,6 +263,7 @@ public class FibonacciHeap
 	 */
 	public int size()
 	{
+		this.drainInsertBuffer();
 		return heapSize; 
 	}
 	
@@ -147,6 +274,7 @@ public class FibonacciHeap
 	 */
 	public int numTrees()
 	{
+		this.drainInsertBuffer();
 		return numTrees;
 	}
 	
@@ -155,7 +283,7 @@ public class FibonacciHeap
 	 * Return the total number of links.
 	 * 
 	 */
-	public int totalLinks()
+	public long totalLinks()
 	{
 		return linksCnt;
 	}
@@ -165,10 +293,76 @@ public class FibonacciHeap
 	 * Return the total number of cuts.
 	 * 
 	 */
-	public int totalCuts()
+	public long totalCuts()
 	{
 		return cutCnt;
 	}
+
+	/**
+	 * 
+	 * Return the total heapify costs, always 0 since decreaseKey only cuts.
+	 * 
+	 */
+	public long totalHeapifyCosts()
+	{
+		return 0;
+	}
+
+	/**
+	 * 
+	 * Return the number of marked nodes in the heap.
+	 * 
+	 */
+	public int numMarkedNodes()
+	{
+		return numMarkedNodes;
+	}
+
+	/**
+	 * 
+	 * Return the potential, numTrees + 2 * numMarkedNodes.
+	 * 
+	 */
+	public long potential()
+	{
+		this.drainInsertBuffer();
+		return numTrees + 2L * numMarkedNodes;
+	}
+
+	/**
+	 * 
+	 * Return a snapshot of the heap's counters, see HeapStats.
+	 * The max rank takes time linear in the number of trees: O(log n) right after
+	 * a deleteMin, up to the size of the heap after many inserts.
+	 * 
+	 */
+	public HeapStats stats()
+	{
+		this.drainInsertBuffer();
+		int maxRank = 0;
+		if (first != null) {
+			HeapNode curr = first;
+			do {
+				maxRank = Math.max(maxRank, curr.rank);
+				curr = curr.next;
+			} while (curr != first);
+		}
+		return new HeapStats(linksCnt, cutCnt, 0, numMarkedNodes, numTrees, heapSize,
+			maxRank, consolidationsCnt, deleteMinCnt);
+	}
+
+	/**
+	 * 
+	 * Zero the totals of links, cuts, consolidations and deleteMins.
+	 * 
+	 */
+	public void resetStats()
+	{
+		linksCnt = 0;
+		cutCnt = 0;
+		consolidationsCnt = 0;
+		deleteMinCnt = 0;
+	}
 	
 
 	/* #################################################################################
@@ -184,18 +378,61 @@ public class FibonacciHeap
 		node.parent = null;
 		first = node;
 		numTrees++; // update counter
-		node.mark = false;	
+		this.unmark(node);
 	}
 
+	/**
+	 * move the nodes offered by other threads to the roots
+	 */
+	private void drainInsertBuffer()
+	{
+		if (insertBuffer.get() == null) // nothing offered since the last drain
+			return;
+		HeapNode node = insertBuffer.getAndSet(null);
+		// turn the stack into a chain while looking for its minimum
+		HeapNode chain = node;
+		HeapNode chainMin = node;
+		HeapNode last = node;
+		int count = 1;
+		for (node = node.next; node != null; node = node.next) {
+			last.connectNext(node);
+			last = node;
+			count++;
+			if (node.key < chainMin.key)
+				chainMin = node;
+		}
+		last.connectNext(chain);
+		this.addSingletonsToRoots(chain, count, chainMin);
+	}
+	
+	/**
+	 * add a chain of count new single nodes, whose minimum is chainMin, to the roots
+	 */
+	private void addSingletonsToRoots(HeapNode chain, int count, HeapNode chainMin)
+	{
+		// if the heap was empty
+		if (heapSize == 0) {
+			first = chain;
+			min = chainMin;
+			numTrees += count;
+		}
+		else {
+			this.spliceIntoRoots(chain, count);
+			this.updateMin(chainMin);
+		}
+		heapSize += count;
+	}
+	
 	/**
 	 * 
-	 * For each node in the chain of the input node, remove its parent
+	 * For each node in the chain of the input node, remove its parent and its mark
 	 *
 	 */
 	private void removeParents(HeapNode node){
 		HeapNode curr = node;
 		do {
 			curr.parent = null;
+			this.unmark(curr);
 			curr = curr.next;
 			cutCnt ++;
 		} while (curr != node);
@@ -209,11 +446,15 @@ public class FibonacciHeap
 		if (heapSize == 1)
 		{
 			// make this heap an empty new heap with the previous counters
-			int prevLinks = linksCnt;
-			int prevCuts = cutCnt;
+			long prevLinks = linksCnt;
+			long prevCuts = cutCnt;
+			long prevConsolidations = consolidationsCnt;
+			long prevDeleteMins = deleteMinCnt;
 			this.duplicateOf(new FibonacciHeap()); 
 			linksCnt = prevLinks;
 			cutCnt = prevCuts;
+			consolidationsCnt = prevConsolidations;
+			deleteMinCnt = prevDeleteMins;
 			return;
 		}
 		// checks if the heap includes a single tree
@@ -253,9 +494,15 @@ public class FibonacciHeap
 	 */
 	public void consolidate()
 	{
-		// initial the "buckets" in which we keep the trees of same ranks
-		int bound = 2*((int) Math.floor(Math.log(heapSize) / Math.log(2)) + 2);
-		HeapNode[] buckets = new HeapNode[bound];
+		consolidationsCnt++;
+		HeapEvents.Consolidate event = HeapEvents.CONSOLIDATE.isEnabled() ? new HeapEvents.Consolidate() : null;
+		if (event != null)
+			event.begin();
+		int rootsIn = numTrees;
+		long linksBefore = linksCnt;
+		// the "buckets" in which we keep the trees of same ranks
+		HeapNode[] buckets = this.consolidationBuckets();
+		int topRank = 0;
 		
 		// iterate through the heap
 		HeapNode curr = first;
@@ -274,9 +521,35 @@ public class FibonacciHeap
 				insideTree = buckets[curr.rank]; // assign to the next bucket			
 			}			
 			buckets[curr.rank] = curr; // insert the new tree to the relevant bucket	
+			if (curr.rank > topRank)
+				topRank = curr.rank;
 			curr = nxt;
 		}
-		this.fromBucketsToHeap(buckets); // update the heap to match the trees in the buckets
+		this.fromBucketsToHeap(buckets, topRank); // update the heap to match the trees in the buckets
+		if (event != null && event.shouldCommit()) {
+			event.heapClass = "FibonacciHeap";
+			event.heapSize = heapSize;
+			event.rootsIn = rootsIn;
+			event.rootsOut = numTrees;
+			event.links = linksCnt - linksBefore;
+			event.commit();
+		}
+	}
+	
+	/**
+	 * returns the consolidation workspace, grown only when the heap's size
+	 * exceeds the largest size it was allocated for.
+	 * a rank r tree holds at least phi^r nodes, so the ranks are below
+	 * 1.5 times the bit length of the size
+	 */
+	private HeapNode[] consolidationBuckets()
+	{
+		if (rankBuckets == null || heapSize > rankBucketsMaxSize) {
+			int bitLength = 32 - Integer.numberOfLeadingZeros(heapSize);
+			rankBuckets = new HeapNode[bitLength + (bitLength >> 1) + 2];
+			rankBucketsMaxSize = (1 << bitLength) - 1;
+		}
+		return rankBuckets;
 	}
 	
 	/**
@@ -312,16 +585,18 @@ public class FibonacciHeap
 	
 	/**
 	 * creates a valid binomial heap out of buckets' nodes
+	 * and clears the buckets up to topRank for the next consolidation
 	 */
-	public void fromBucketsToHeap(HeapNode[] buckets)
+	public void fromBucketsToHeap(HeapNode[] buckets, int topRank)
 	{
 		min = null;
 		numTrees = 0;
 		// go over the nodes in buckets from the biggest to smallest 
-		for (int i = buckets.length - 1; i >= 0; i--) {
+		for (int i = topRank; i >= 0; i--) {
 			HeapNode node = buckets[i]; 
 			if (node != null)
 			{
+				buckets[i] = null;
 				// checks if we didn't encounter real nodes yet
 				if (min == null) {			
 					
@@ -352,40 +627,94 @@ public class FibonacciHeap
 	
 	/**
 	 * pre: node is in heap
-	 * cut node from its parent, add it to the heap's roots
-	 * and cascade cut to parent if needed 
+	 * cut node from its parent and add it to the heap's roots
 	 */
 	public void cut(HeapNode node)
+	{
+		this.detachFromParent(node);
+		this.spliceIntoRoots(node, 1);
+	}
+	
+	/**
+	 * pre: node is not a root
+	 * omit node from its parent's children, leaving it as a single unmarked tree
+	 */
+	private void detachFromParent(HeapNode node)
 	{
 		HeapNode prnt = node.parent;
 		// check if node is an only child
 		if (node.next == node) 
 			prnt.child = null;
 		else {
-				prnt.child = node.next;
-				node.prev.connectNext(node.next); // omit node from its original chain
-			}		
-		// insert node to the heap's roots 
-		this.insertNodeToRoots(node);	
+			prnt.child = node.next;
+			node.prev.connectNext(node.next); // omit node from its original chain
+			node.next = node;
+			node.prev = node;
+		}
+		node.parent = null;
+		this.unmark(node);
 		// update parameters
 		prnt.rank--;
 		cutCnt++;
 	}
 	
 	/**
-	 * initiate the cascading cut process from node upwards
+	 * splice a chain of count parentless trees into the heap's roots, before first
+	 */
+	private void spliceIntoRoots(HeapNode chain, int count)
+	{
+		HeapNode lastInChain = chain.prev;
+		first.prev.connectNext(chain);
+		lastInChain.connectNext(first);
+		first = chain;
+		numTrees += count;
+	}
+	
+	/**
+	 * initiate the cascading cut process from node upwards.
+	 * the marked ancestors are cut in a loop, and all the cut nodes
+	 * are chained together and spliced into the roots at once
 	 */
 	public void cascadingCut(HeapNode node)
 	{
-		HeapNode prnt = node.parent;
-		// perform the cut of node from its parent
-		this.cut(node);
-		// if prnt is not a root
-		if (prnt.parent != null) {
-			if (!prnt.mark) // if it's not marked - mark it
-				prnt.mark = true;
-			else // call cascadingCut recursively
-				cascadingCut(prnt);
+		HeapEvents.CascadingCut event = HeapEvents.CASCADING_CUT.isEnabled() ? new HeapEvents.CascadingCut() : null;
+		if (event != null)
+			event.begin();
+		HeapNode chain = null; // the cut nodes
+		int chainLength = 0;
+		do {
+			HeapNode prnt = node.parent;
+			// perform the cut of node from its parent
+			this.detachFromParent(node);
+			if (chain == null)
+				chain = node;
+			else
+				node.insertBefore(chain);
+			chainLength++;
+			node = prnt;
+		} while (node.parent != null && node.mark); // continue while the parent is a marked non-root
+		// if the last parent is not a root, it isn't marked - mark it
+		if (node.parent != null) {
+			node.mark = true;
+			numMarkedNodes++;
+		}
+		this.spliceIntoRoots(chain, chainLength);
+		if (event != null && event.shouldCommit()) {
+			event.heapClass = "FibonacciHeap";
+			event.heapSize = heapSize;
+			event.depth = chainLength;
+			event.commit();
+		}
+	}
+
+	/**
+	 * clear the mark of node, a root to be, keeping numMarkedNodes exact
+	 */
+	private void unmark(HeapNode node)
+	{
+		if (node.mark) {
+			node.mark = false;
+			numMarkedNodes--;
 		}
 	}
 
@@ -420,6 +749,9 @@ public class FibonacciHeap
 		numTrees = other.numTrees;
 		linksCnt = other.linksCnt;
 		cutCnt = other.cutCnt;
+		numMarkedNodes = other.numMarkedNodes;
+		consolidationsCnt = other.consolidationsCnt;
+		deleteMinCnt = other.deleteMinCnt;
 	}
 
 
@@ -433,6 +765,7 @@ public class FibonacciHeap
 	public static class HeapNode{
 		public int key;
 		public String info;
+		public int payload; // set by insertAllWithPayloads, fits in the node's padding
 		public HeapNode child;
 		public HeapNode next;
 		public HeapNode prev;
@@ -0,0 +1,110 @@
+import java.util.Comparator;
+
+/**
+ * GenericHeap
+ *
+ * An implementation of Fibonacci heap over keys of any type with a value of any type,
+ * with the possibility of not performing lazy melds and
+ * the possibility of not performing lazy decrease keys, as in Heap.
+ * Keys are ordered by a comparator, or by their natural order when it is null.
+ *
+ */
+public class GenericHeap<K, V> extends AbstractKeyHeap<GenericHeap.HeapNode<K, V>>
+{
+    private final Comparator<? super K> comparator; // null for the keys' natural order
+
+    /* ###############################################################################
+    //                               main methods
+    ############################################################################### */
+
+    /**
+     *
+     * Constructor to initialize an empty heap.
+     *
+     */
+    public GenericHeap(boolean lazyMelds, boolean lazyDecreaseKeys)
+    {
+        this(lazyMelds, lazyDecreaseKeys, null);
+    }
+
+    /**
+     *
+     * Constructor to initialize an empty heap ordered by comparator.
+     *
+     */
+    public GenericHeap(boolean lazyMelds, boolean lazyDecreaseKeys, Comparator<? super K> comparator)
+    {
+        super(lazyMelds, lazyDecreaseKeys);
+        this.comparator = comparator;
+    }
+
+    /**
+     *
+     * Insert (key,value) into the heap and return the newly generated HeapNode.
+     *
+     */
+    public HeapNode<K, V> insert(K key, V value)
+    {
+        return this.insertNode(new HeapNode<>(key, value));
+    }
+
+    /**
+     *
+     * pre: key is not greater than x.key
+     *
+     * Decrease the key of x to key and fix the heap.
+     *
+     */
+    public void decreaseKey(HeapNode<K, V> x, K key)
+    {
+        x.key = key;
+        this.keyDecreased(x);
+    }
+
+    /**
+     *
+     * Meld the heap with heap2
+     * pre: heap2.lazyMelds = this.lazyMelds AND heap2.lazyDecreaseKeys = this.lazyDecreaseKeys
+     * AND heap2 orders keys as this heap does
+     *
+     */
+    public void meld(GenericHeap<K, V> heap2)
+    {
+        this.meldHeap(heap2);
+    }
+
+
+    /* ###############################################################################
+    //                               HELP METHODS
+    ############################################################################### */
+
+    /**
+     * returns true if the key of a is smaller than the key of b
+     */
+    @SuppressWarnings("unchecked")
+    protected boolean less(HeapNode<K, V> a, HeapNode<K, V> b)
+    {
+        if (comparator == null) // natural order, no comparator call
+            return ((Comparable<? super K>) a.key).compareTo(b.key) < 0;
+        return comparator.compare(a.key, b.key) < 0;
+    }
+
+
+    /**
+     * Class implementing a node in a GenericHeap.
+     *
+     */
+    public static class HeapNode<K, V> extends AbstractKeyHeap.Node<HeapNode<K, V>>{
+        public K key;
+        public V value;
+
+        /**
+         * constructor with key and value
+         */
+        public HeapNode(K key, V value)
+        {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -1,3 +1,12 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 /**
  * Heap
  *
@@ -6,19 +15,30 @@
  * the possibility of not performing lazy decrease keys.
  *
  */
-public class Heap
+public class Heap implements AddressablePriorityQueue<Heap.HeapNode>
 
 {
+    public static final int DEFAULT_PARALLEL_CONSOLIDATE_THRESHOLD = 1 << 16;
+    private static final int MIN_SEGMENT_ROOTS = 1 << 12; // roots per parallel consolidation segment
+
     public final boolean lazyMelds;
     public final boolean lazyDecreaseKeys;
     private HeapNode min;
 	private HeapNode first; // pointer to the first tree's root
 	private int heapSize; // heap's size
 	private int numTrees;
-	private int linksCnt;
-	private int cutCnt;
-    private int totalHeapifyCosts;
+	private long linksCnt;
+	private long cutCnt;
+    private long totalHeapifyCosts;
     private int numMarkedNodes;
+    private long consolidationsCnt;
+    private long deleteMinCnt;
+    private boolean rootsInRankOrder; // roots form a binomial forest of ascending ranks from first
+    private HeapNode[] rankBuckets; // consolidation workspace, indexed by rank
+    private int rankBucketsMaxSize; // the largest heap size rankBuckets can hold the ranks of
+    private HeapNode[] candidates; // pollMany workspace, a binary heap of roots by key
+    private int parallelConsolidateThreshold = DEFAULT_PARALLEL_CONSOLIDATE_THRESHOLD;
+    private HeapMetrics metrics; // per operation histograms, null when disabled
 
     /* ###############################################################################
     //                               HELP METHODS  
@@ -72,47 +92,155 @@ public class Heap
     }
 
     /**
-	 * initiate the cascading cut process from node upwards
+	 * initiate the cascading cut process from node upwards.
+	 * the marked ancestors are cut in a loop, and all the cut nodes
+	 * are chained together and spliced into the roots at once
 	 */
 	public void cascadingCut(HeapNode node)
 	{
-		HeapNode prnt = node.parent;
-		// perform the cut of node from its parent
-		this.cut(node);
-		// if prnt is not a root
-		if (prnt.parent != null) {
-			if (!prnt.mark){ // if it's not marked - mark it
-				prnt.mark = true;
-                numMarkedNodes++;
-            }
-			else { // call cascadingCut recursively
-				cascadingCut(prnt);
-            }
+		this.spliceIntoRoots(this.cascadingCutToChain(node, null));
+	}
+
+    /**
+	 * the cascading cut process without touching the roots:
+	 * the cut nodes are added to chain (null for a new chain), already counted as trees.
+	 * returns the chain
+	 */
+	private HeapNode cascadingCutToChain(HeapNode node, HeapNode chain)
+	{
+		HeapEvents.CascadingCut event = HeapEvents.CASCADING_CUT.isEnabled() ? new HeapEvents.CascadingCut() : null;
+		if (event != null)
+			event.begin();
+		int depth = 0;
+		do {
+			HeapNode prnt = node.parent;
+			// perform the cut of node from its parent
+			this.detachFromParent(node);
+			if (chain == null)
+				chain = node;
+			else
+				node.insertBefore(chain);
+			numTrees++;
+			depth++;
+			node = prnt;
+		} while (node.parent != null && node.mark); // continue while the parent is a marked non-root
+		// if the last parent is not a root, it isn't marked - mark it
+		if (node.parent != null) {
+			node.mark = true;
+			numMarkedNodes++;
+		}
+		if (event != null && event.shouldCommit()) {
+			event.heapClass = "Heap";
+			event.heapSize = heapSize;
+			event.depth = depth;
+			event.commit();
 		}
+		return chain;
 	}
 
+    /**
+	 * move node up the tree while it is smaller than its parent.
+	 * the nodes are relinked rather than trading keys, so every HeapNode
+	 * returned by insert keeps holding its own key and info.
+	 * each swap only relinks the two nodes, the children's parents are set
+	 * once at the end, one pass over the children of every moved node
+	 */
     public void HeapifyUp(HeapNode node)
+    {
+        HeapNode lowestAncestor = node.parent;
+        int swaps = 0;
+        while (node.parent != null && node.key < node.parent.key) {
+            this.swapWithParent(node);
+            swaps++;
+        }
+        if (swaps == 0)
+            return;
+        totalHeapifyCosts += swaps;
+        // the ancestors moved one place down, each still pointing to the one above it
+        HeapNode ancestor = lowestAncestor;
+        while (ancestor != node.parent) {
+            HeapNode above = ancestor.parent;
+            this.setParents(ancestor.child, ancestor);
+            ancestor = above;
+        }
+        this.setParents(node.child, node);
+    }
+
+    /**
+	 * pre: node is not a root
+	 * exchange the places of node and its parent in the tree:
+	 * node takes its parent's place in the parent's chain, the parent takes
+	 * node's place among its own children, and node's children move to the parent.
+	 * only node's own parent is set, HeapifyUp sets the parents of the children
+	 */
+    private void swapWithParent(HeapNode node)
     {
         HeapNode prnt = node.parent;
-        while (prnt != null && node.key < prnt.key) {
-            int tmpKey = prnt.key;
-            String tmpInfo = prnt.info;
-            prnt.key = node.key;
-            prnt.info = node.info;
-            node.key = tmpKey;
-            node.info = tmpInfo;
-            node = prnt;
-            prnt = node.parent;
-            totalHeapifyCosts++;
+        HeapNode grandParent = prnt.parent;
+        HeapNode nodeChild = node.child;
+        HeapNode nodePrev = node.prev;
+        HeapNode nodeNext = node.next;
+        HeapNode prntPrev = prnt.prev;
+        HeapNode prntNext = prnt.next;
+
+        // node replaces prnt in prnt's chain
+        if (prntNext == prnt) {
+            node.next = node;
+            node.prev = node;
         }
+        else {
+            prntPrev.connectNext(node);
+            node.connectNext(prntNext);
+        }
+        node.parent = grandParent;
+        if (grandParent != null) {
+            if (grandParent.child == prnt)
+                grandParent.child = node;
+        }
+        else if (first == prnt)
+            first = node;
+        if (min == prnt)
+            min = node;
+
+        // prnt replaces node among prnt's children, which become node's children
+        if (nodeNext == node) {
+            prnt.next = prnt;
+            prnt.prev = prnt;
+        }
+        else {
+            nodePrev.connectNext(prnt);
+            prnt.connectNext(nodeNext);
+        }
+        node.child = (prnt.child == node) ? prnt : prnt.child;
+
+        // node's children become prnt's children
+        prnt.child = nodeChild;
+
+        // the rank and the mark belong to the place in the tree
+        int tmpRank = node.rank;
+        node.rank = prnt.rank;
+        prnt.rank = tmpRank;
+        boolean tmpMark = node.mark;
+        node.mark = prnt.mark;
+        prnt.mark = tmpMark;
     }
 
     /**
 	 * pre: node is in heap
-	 * cut node from its parent, add it to the heap's roots
-	 * and cascade cut to parent if needed 
+	 * cut node from its parent and add it to the heap's roots
 	 */
 	public void cut(HeapNode node)
+	{
+		this.detachFromParent(node);
+		this.spliceIntoRoots(node);
+		numTrees++;
+	}
+
+    /**
+	 * pre: node is not a root
+	 * omit node from its parent's children, leaving it as a single unmarked tree
+	 */
+	private void detachFromParent(HeapNode node)
 	{
 		HeapNode prnt = node.parent;
 		// check if node is an only child
@@ -122,15 +250,32 @@ public class Heap
             if (prnt.child == node){ // if node is the first child of prnt
 				prnt.child = node.next;
             }
-				node.prev.connectNext(node.next); // omit node from its original chain
-			}		
-		// insert node to the heap's roots 
-		this.insertNodeToRoots(node);	
+			node.prev.connectNext(node.next); // omit node from its original chain
+			node.next = node;
+			node.prev = node;
+		}
+		node.parent = null;
+		this.unmark(node);
 		// update parameters
 		prnt.rank--;
 		cutCnt++;
 	}
 
+    /**
+	 * splice a chain of parentless trees into the heap's roots, before first.
+	 * the caller counts the new trees
+	 */
+	private void spliceIntoRoots(HeapNode chain)
+	{
+		if (first != null) {
+			HeapNode lastInChain = chain.prev;
+			first.prev.connectNext(chain);
+			lastInChain.connectNext(first);
+		}
+		first = chain;
+		rootsInRankOrder = false;
+	}
+
     /**
 	 * relocate the input node to the heap's roots
 	 */
@@ -147,7 +292,44 @@ public class Heap
 		}
 		node.parent = null;
 		numTrees++; // update counter
-		node.mark = false;	
+		this.unmark(node);
+		rootsInRankOrder = false;
+	}
+
+	/**
+	 * pre: the roots form a binomial forest of ascending ranks starting at first
+	 * add a new rank 0 tree to the roots like incrementing a binary counter:
+	 * link with the first root as long as the ranks are equal
+	 */
+	public void carryIntoRoots(HeapNode node)
+	{
+		HeapNode carry = node;
+		while (first != null && first.rank == carry.rank) {
+			HeapNode root = first;
+			// omit root from the roots' chain
+			if (root.next == root)
+				first = null;
+			else {
+				first = root.next;
+				root.prev.connectNext(root.next);
+			}
+			root.next = root;
+			root.prev = root;
+			numTrees--;
+			carry = this.link(carry, root);
+		}
+		// the carried tree has the smallest rank so it becomes the first root
+		if (first == null) {
+			carry.next = carry;
+			carry.prev = carry;
+		}
+		else
+			carry.insertBefore(first);
+		first = carry;
+		numTrees++;
+		// the min might have been linked below the carried root (equal keys)
+		if (min == null || min.parent != null || carry.key < min.key)
+			min = carry;
 	}
 
 	/**
@@ -167,6 +349,10 @@ public class Heap
             linksCnt = heap2.linksCnt;
             cutCnt = heap2.cutCnt;
             totalHeapifyCosts = heap2.totalHeapifyCosts;
+            consolidationsCnt = heap2.consolidationsCnt;
+            deleteMinCnt = heap2.deleteMinCnt;
+            numMarkedNodes = heap2.numMarkedNodes;
+            rootsInRankOrder = heap2.rootsInRankOrder;
 			return;
 		}
 
@@ -181,11 +367,15 @@ public class Heap
 		linksCnt += heap2.linksCnt;
 		cutCnt += heap2.cutCnt;
         totalHeapifyCosts += heap2.totalHeapifyCosts;
+        consolidationsCnt += heap2.consolidationsCnt;
+        deleteMinCnt += heap2.deleteMinCnt;
+        numMarkedNodes += heap2.numMarkedNodes;
 		
         // update the min field if needed
 		if (heap2.min != null && (this.min == null || heap2.min.key < this.min.key)) {
 			this.min = heap2.min;
 		}
+		rootsInRankOrder = false;
     }
 
 	/**
@@ -205,11 +395,37 @@ public class Heap
 		if (heapSize == 0 || numTrees == 0 || first == null) {
 			return;
 		}
+		consolidationsCnt++;
+		HeapEvents.Consolidate event = HeapEvents.CONSOLIDATE.isEnabled() ? new HeapEvents.Consolidate() : null;
+		if (event != null)
+			event.begin();
+		int rootsIn = numTrees;
+		long linksBefore = linksCnt;
 		
-		// initial the "buckets" in which we keep the trees of same ranks
-		// Since we recalculate ranks below, the maximum rank will be at most log2(heapSize)
-		int bound = 2*((int)Math.ceil(Math.log(Math.max(heapSize, 2)) / Math.log(2)) + 5);
-		HeapNode[] buckets = new HeapNode[bound];
+		// many roots (after lazy melds) are consolidated in segments on the common pool
+		boolean parallel = numTrees >= parallelConsolidateThreshold && this.parallelConsolidate();
+		if (!parallel)
+			this.sequentialConsolidate();
+		
+		if (event != null && event.shouldCommit()) {
+			event.heapClass = "Heap";
+			event.heapSize = heapSize;
+			event.rootsIn = rootsIn;
+			event.rootsOut = numTrees;
+			event.links = linksCnt - linksBefore;
+			event.parallel = parallel;
+			event.commit();
+		}
+	}
+
+	/**
+	 * consolidate the roots one after the other into the buckets
+	 */
+	private void sequentialConsolidate()
+	{
+		// the "buckets" in which we keep the trees of same ranks
+		HeapNode[] buckets = this.consolidationBuckets();
+		int topRank = 0;
 		
 		// iterate through the heap
 		HeapNode curr = first;
@@ -220,23 +436,6 @@ public class Heap
 			curr.next = curr;
 			curr.prev = curr;
 			
-			// Verify rank is correct (should equal number of children)
-			int actualRank = 0;
-			if (curr.child != null) {
-				HeapNode child = curr.child;
-				int maxIter = heapSize + 10; // safety limit
-				do {
-					actualRank++;
-					child = child.next;
-					if (actualRank > maxIter) {
-						// Cycle detected - reset to safe value
-						actualRank = 0;
-						break;
-					}
-				} while (child != curr.child);
-			}
-			curr.rank = actualRank;
-			
 			HeapNode subTree = buckets[curr.rank];
 			while(subTree != null)
 			{				
@@ -245,9 +444,122 @@ public class Heap
 				subTree = buckets[curr.rank]; // assign to the next bucket			
 			}			
 			buckets[curr.rank] = curr; // insert the new tree to the relevant bucket	
+			if (curr.rank > topRank)
+				topRank = curr.rank;
 			curr = nxt;
 		}
-		this.fromBucketsToHeap(buckets); // update the heap to match the trees in the buckets
+		this.fromBucketsToHeap(buckets, topRank); // update the heap to match the trees in the buckets
+	}
+
+	/**
+	 * consolidate the roots in parallel: the roots' chain is split into segments,
+	 * each segment is consolidated into buckets of its own by a ForkJoinPool task,
+	 * and the segments' buckets are merged into the heap's buckets, linking
+	 * trees of equal ranks as carries.
+	 * returns false, doing nothing, if there is not enough parallelism or roots to split
+	 */
+	private boolean parallelConsolidate()
+	{
+		int numSegments = Math.min(ForkJoinPool.getCommonPoolParallelism(), numTrees / MIN_SEGMENT_ROOTS);
+		if (numSegments < 2)
+			return false;
+		HeapNode[] buckets = this.consolidationBuckets();
+		int numBuckets = buckets.length;
+
+		// split the roots into segments and consolidate each of them in its own task
+		List<ForkJoinTask<HeapNode[]>> tasks = new ArrayList<>(numSegments);
+		int[] segmentLinks = new int[numSegments];
+		HeapNode curr = first;
+		for (int s = 0; s < numSegments; s++) {
+			HeapNode start = curr;
+			int length = numTrees / numSegments + (s < numTrees % numSegments ? 1 : 0);
+			for (int i = 0; i < length; i++)
+				curr = curr.next;
+			int segment = s;
+			tasks.add(ForkJoinPool.commonPool().submit(
+				() -> consolidateSegment(start, length, numBuckets, segmentLinks, segment)));
+		}
+
+		// merge the segments' buckets, carrying equal ranks upwards
+		int topRank = 0;
+		for (int s = 0; s < numSegments; s++) {
+			HeapNode[] segmentBuckets = tasks.get(s).join();
+			linksCnt += segmentLinks[s];
+			for (int r = 0; r < numBuckets; r++) {
+				HeapNode tree = segmentBuckets[r];
+				if (tree == null)
+					continue;
+				HeapNode subTree = buckets[tree.rank];
+				while (subTree != null)
+				{
+					buckets[tree.rank] = null; // remove the inside tree from its bucket
+					tree = this.link(tree, subTree); // assign tree to be the root of the linked tree
+					subTree = buckets[tree.rank]; // assign to the next bucket
+				}
+				buckets[tree.rank] = tree;
+				if (tree.rank > topRank)
+					topRank = tree.rank;
+			}
+		}
+		this.fromBucketsToHeap(buckets, topRank); // update the heap to match the trees in the buckets
+		return true;
+	}
+
+	/**
+	 * consolidate length roots starting at start into new buckets of numBuckets ranks
+	 * and store the number of links in links[segment].
+	 * touches only the trees of the segment, so segments can run concurrently
+	 */
+	private static HeapNode[] consolidateSegment(HeapNode start, int length, int numBuckets, int[] links, int segment)
+	{
+		HeapNode[] buckets = new HeapNode[numBuckets];
+		int segmentLinks = 0;
+		HeapNode curr = start;
+		for (int i = 0; i < length; i++)
+		{
+			// separate curr from others, keep a pointer for the next tree
+			HeapNode nxt = curr.next;
+			curr.next = curr;
+			curr.prev = curr;
+
+			HeapNode subTree = buckets[curr.rank];
+			while (subTree != null)
+			{
+				buckets[curr.rank] = null;
+				curr = linkTrees(curr, subTree);
+				segmentLinks++;
+				subTree = buckets[curr.rank];
+			}
+			buckets[curr.rank] = curr;
+			curr = nxt;
+		}
+		links[segment] = segmentLinks;
+		return buckets;
+	}
+
+	/**
+	 * Set the number of roots from which consolidate runs in parallel
+	 * (Integer.MAX_VALUE to never run in parallel).
+	 */
+	public void setParallelConsolidateThreshold(int threshold)
+	{
+		this.parallelConsolidateThreshold = threshold;
+	}
+
+	/**
+	 * returns the consolidation workspace, grown only when the heap's size
+	 * exceeds the largest size it was allocated for.
+	 * a rank r tree holds at least phi^r nodes, so the ranks are below
+	 * 1.5 times the bit length of the size
+	 */
+	private HeapNode[] consolidationBuckets()
+	{
+		if (rankBuckets == null || heapSize > rankBucketsMaxSize) {
+			int bitLength = 32 - Integer.numberOfLeadingZeros(heapSize);
+			rankBuckets = new HeapNode[bitLength + (bitLength >> 1) + 2];
+			rankBucketsMaxSize = (1 << bitLength) - 1;
+		}
+		return rankBuckets;
 	}
 	
 	/**
@@ -256,6 +568,18 @@ public class Heap
 	 * returns a pointer to the root of the linked tree
 	 */
 	public HeapNode link(HeapNode x,HeapNode y)
+	{
+		// increase the heap's links count by 1
+		linksCnt++ ;
+		return linkTrees(x, y);
+	}
+
+	/**
+	 * pre: x, y roots
+	 * link the two trees according to heaps' rule without counting the link
+	 * returns a pointer to the root of the linked tree
+	 */
+	private static HeapNode linkTrees(HeapNode x,HeapNode y)
 	{
 		// make x node the smaller one
 		if (y.key < x.key) {
@@ -276,24 +600,25 @@ public class Heap
 		y.parent = x;
 		// update rank	
 		x.rank++ ;
-		// increase the heap's links count by 1
-		linksCnt++ ;
 		return x;
 	}
 	
 	/**
 	 * creates a valid binomial heap out of buckets' nodes
+	 * and clears the buckets up to topRank for the next consolidation
 	 */
-	public void fromBucketsToHeap(HeapNode[] buckets)
+	public void fromBucketsToHeap(HeapNode[] buckets, int topRank)
 	{
 		min = null;
 		first = null;
 		numTrees = 0;
+		rootsInRankOrder = true;
 		// go over the nodes in buckets from the biggest to smallest 
-		for (int i = buckets.length - 1; i >= 0; i--) {
+		for (int i = topRank; i >= 0; i--) {
 			HeapNode node = buckets[i]; 
 			if (node != null)
 			{
+				buckets[i] = null;
 				// checks if we didn't encounter real nodes yet
 				if (first == null) {			
 					first = node;
@@ -318,7 +643,7 @@ public class Heap
 
     /**
 	 * 
-	 * For each node in the chain of the input node, remove its parent
+	 * For each node in the chain of the input node, remove its parent and its mark
 	 *
 	 */
 	private void removeParents(HeapNode node){
@@ -326,10 +651,49 @@ public class Heap
 		HeapNode curr = node;
 		do {
 			curr.parent = null;
+			this.unmark(curr);
+			curr = curr.next;
+		} while (curr != node);
+	}
+
+    /**
+	 * clear the mark of node, a root to be, keeping numMarkedNodes exact
+	 */
+	private void unmark(HeapNode node)
+	{
+		if (node.mark) {
+			node.mark = false;
+			numMarkedNodes--;
+		}
+	}
+
+    /**
+	 * 
+	 * For each node in the chain of the input node, set its parent to prnt
+	 *
+	 */
+	private void setParents(HeapNode node, HeapNode prnt){
+		if (node == null) return;
+		HeapNode curr = node;
+		do {
+			curr.parent = prnt;
 			curr = curr.next;
 		} while (curr != node);
 	}
 
+    /**
+	 * leave the heap empty after its trees were melded into another heap, keeping its totals
+	 */
+	private void clearTrees()
+	{
+		min = null;
+		first = null;
+		heapSize = 0;
+		numTrees = 0;
+		numMarkedNodes = 0;
+		rootsInRankOrder = true;
+	}
+
     /**
 	 * make this heap a duplicate of "other" heap
 	 */
@@ -341,6 +705,8 @@ public class Heap
 		numTrees = other.numTrees;
 		linksCnt = other.linksCnt;
 		cutCnt = other.cutCnt;
+		numMarkedNodes = other.numMarkedNodes;
+		rootsInRankOrder = other.rootsInRankOrder;
 	}
 
 
@@ -365,6 +731,9 @@ public class Heap
         this.cutCnt = 0;
 		this.totalHeapifyCosts = 0;
 		this.numMarkedNodes = 0;
+		this.consolidationsCnt = 0;
+		this.deleteMinCnt = 0;
+		this.rootsInRankOrder = true;
     }
 
     /**
@@ -377,23 +746,131 @@ public class Heap
     public HeapNode insert(int key, String info) 
     {    
         HeapNode newNode = new HeapNode(key, info);
-        Heap newHeap = new Heap(this.lazyMelds, this.lazyDecreaseKeys);
-        newHeap.first = newNode;
-        newHeap.min = newNode;
-        newHeap.heapSize = 1;
-        newHeap.numTrees = 1;
-        
-		// Meld with new heap
-		this.meld(newHeap);
-		
-		// Ensure min is correctly updated
-		if (this.min == null || newNode.key < this.min.key) {
-			this.min = newNode;
-		}
-		
+        this.insertNode(newNode);
 		return newNode; 
     }
 
+    /**
+     * 
+     * pre: node.key > 0, node is not in any heap
+     *
+     * Insert an existing node into the heap as a new single node tree,
+     * dropping its former children. Lets a node deleted from one heap
+     * move into another while keeping its handle.
+     *
+     */
+    public void insertNode(HeapNode node)
+    {
+        if (metrics == null) {
+            this.insertNodeWithoutMetrics(node);
+            return;
+        }
+        long startTime = System.nanoTime();
+        long startCost = this.structuralCost();
+        this.insertNodeWithoutMetrics(node);
+        metrics.record(HeapMetrics.INSERT, System.nanoTime() - startTime, this.structuralCost() - startCost);
+    }
+
+    /**
+     * insertNode without recording it in the metrics
+     */
+    private void insertNodeWithoutMetrics(HeapNode node)
+    {
+        node.child = null;
+        node.parent = null;
+        node.rank = 0;
+        node.mark = false;
+        heapSize++;
+        if (this.lazyMelds) {
+            // a lazy meld with a single node heap is just a splice into the roots
+            this.insertNodeToRoots(node);
+            this.updateMin(node);
+        }
+        else if (rootsInRankOrder) {
+            this.carryIntoRoots(node);
+        }
+        else {
+            // cuts broke the binomial forest, consolidate as a not lazy meld would
+            this.insertNodeToRoots(node);
+            this.consolidate();
+        }
+    }
+
+    /**
+     * 
+     * pre: every key > 0, infos is null or as long as keys
+     *
+     * Insert all (keys[i],infos[i]) into the heap in one pass and return
+     * the newly generated HeapNodes, in the order of keys.
+     * The new nodes are spliced into the roots as a single chain, and without
+     * lazy melds they are consolidated once into a binomial forest.
+     *
+     */
+    public HeapNode[] insertAll(int[] keys, String[] infos)
+    {
+        HeapNode[] nodes = new HeapNode[keys.length];
+        if (keys.length == 0)
+            return nodes;
+        long startTime = (metrics == null) ? 0 : System.nanoTime();
+        long startCost = (metrics == null) ? 0 : this.structuralCost();
+        HeapEvents.BulkOperation event = HeapEvents.BULK_OPERATION.isEnabled() ? new HeapEvents.BulkOperation() : null;
+        if (event != null)
+            event.begin();
+        // chain the new nodes while looking for their minimum
+        HeapNode chainMin = null;
+        HeapNode last = null;
+        for (int i = 0; i < keys.length; i++) {
+            HeapNode node = new HeapNode(keys[i], infos == null ? null : infos[i]);
+            nodes[i] = node;
+            if (last != null)
+                last.connectNext(node);
+            last = node;
+            if (chainMin == null || node.key < chainMin.key)
+                chainMin = node;
+        }
+        last.connectNext(nodes[0]);
+
+        heapSize += keys.length;
+        numTrees += keys.length;
+        this.spliceIntoRoots(nodes[0]);
+        if (this.lazyMelds)
+            this.updateMin(chainMin);
+        else
+            this.consolidate();
+        this.commitBulkOperation(event, "insertAll", keys.length);
+        if (metrics != null)
+            metrics.record(HeapMetrics.INSERT_ALL, System.nanoTime() - startTime, this.structuralCost() - startCost);
+        return nodes;
+    }
+
+    /**
+     * 
+     * pre: every key > 0
+     *
+     * Insert all keys into the heap with null infos, see insertAll(int[], String[]).
+     *
+     */
+    public HeapNode[] insertAll(int[] keys)
+    {
+        return this.insertAll(keys, null);
+    }
+
+    /**
+     * 
+     * pre: every key > 0, payloads is as long as keys
+     *
+     * Insert all keys into the heap with null infos and the int payloads[i] in
+     * the nodes' payload field, see insertAll(int[], String[]).
+     *
+     */
+    public HeapNode[] insertAllWithPayloads(int[] keys, int[] payloads)
+    {
+        HeapNode[] nodes = this.insertAll(keys, null);
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i].payload = payloads[i];
+        return nodes;
+    }
+
     /**
 	 * 
 	 * Return the minimal HeapNode, null if empty.
@@ -409,19 +886,35 @@ public class Heap
      *
      */
     public void deleteMin()
+    {
+        if (metrics == null) {
+            this.deleteMinWithoutMetrics();
+            return;
+        }
+        long startTime = System.nanoTime();
+        long startCost = this.structuralCost();
+        this.deleteMinWithoutMetrics();
+        metrics.record(HeapMetrics.DELETE_MIN, System.nanoTime() - startTime, this.structuralCost() - startCost);
+    }
+
+    /**
+     * deleteMin without recording it in the metrics
+     */
+    private void deleteMinWithoutMetrics()
     {
         // Handle empty heap
         if (heapSize == 0 || min == null) {
             return;
         }
+        deleteMinCnt++;
         
         HeapNode min_node = min;
         // edge case of a single-node-heap
 		if (heapSize == 1)
 		{
 			// make this heap an empty new heap with the previous counters
-			int prevLinks = linksCnt;
-			int prevCuts = cutCnt;
+			long prevLinks = linksCnt;
+			long prevCuts = cutCnt;
 			this.duplicateOf(new Heap(this.lazyMelds, this.lazyDecreaseKeys)); 
 			linksCnt = prevLinks;
 			cutCnt = prevCuts;
@@ -474,6 +967,160 @@ public class Heap
         this.updateMin();
     }
 
+    /**
+     * 
+     * Delete the k minimal items (all items if the heap is smaller) and write
+     * their HeapNodes to sink in ascending order of keys, when sink is not null.
+     * Returns the number of deleted items.
+     *
+     */
+    public int pollMany(int k, HeapNode[] sink)
+    {
+        return this.pollMany(k, sink, null);
+    }
+
+    /**
+     * 
+     * Delete the k minimal items (all items if the heap is smaller) and write
+     * their keys to sink in ascending order, when sink is not null.
+     * Returns the number of deleted items.
+     *
+     */
+    public int pollManyKeys(int k, int[] sink)
+    {
+        return this.pollMany(k, null, sink);
+    }
+
+    /**
+     * 
+     * pre: the sinks that are not null have room for k items
+     *
+     * Delete the k minimal items, reporting them to nodeSink and keySink.
+     * The candidates for the next minimum - the roots and the children of the
+     * items deleted so far - are kept in a binary heap, so the trees are
+     * consolidated only once for the whole batch.
+     *
+     */
+    private int pollMany(int k, HeapNode[] nodeSink, int[] keySink)
+    {
+        int count = Math.min(k, heapSize);
+        if (count <= 0)
+            return 0;
+        long startTime = (metrics == null) ? 0 : System.nanoTime();
+        long startCost = (metrics == null) ? 0 : this.structuralCost();
+        HeapEvents.BulkOperation event = HeapEvents.BULK_OPERATION.isEnabled() ? new HeapEvents.BulkOperation() : null;
+        if (event != null)
+            event.begin();
+
+        // put the roots in the candidates' heap
+        int poolSize = numTrees;
+        HeapNode[] pool = this.candidatesWorkspace(poolSize);
+        HeapNode curr = first;
+        for (int i = 0; i < poolSize; i++) {
+            pool[i] = curr;
+            curr = curr.next;
+        }
+        for (int i = poolSize / 2 - 1; i >= 0; i--)
+            siftDown(pool, poolSize, i);
+
+        // delete the minimal candidate count times, its children become candidates
+        for (int j = 0; j < count; j++) {
+            HeapNode top = pool[0];
+            pool[0] = pool[--poolSize];
+            pool[poolSize] = null;
+            siftDown(pool, poolSize, 0);
+            this.unmark(top); // children are polled with their marks
+            if (nodeSink != null)
+                nodeSink[j] = top;
+            if (keySink != null)
+                keySink[j] = top.key;
+            if (top.child != null) {
+                pool = this.candidatesWorkspace(poolSize + top.rank);
+                HeapNode child = top.child;
+                do {
+                    pool[poolSize] = child;
+                    siftUp(pool, poolSize++);
+                    child = child.next;
+                } while (child != top.child);
+            }
+        }
+
+        // the remaining candidates are the new roots
+        heapSize -= count;
+        deleteMinCnt += count;
+        first = null;
+        min = null;
+        numTrees = 0;
+        rootsInRankOrder = true;
+        for (int i = 0; i < poolSize; i++) {
+            HeapNode node = pool[i];
+            pool[i] = null;
+            node.parent = null;
+            this.unmark(node);
+            if (first == null) {
+                node.next = node;
+                node.prev = node;
+                first = node;
+            }
+            else
+                node.insertBefore(first);
+            numTrees++;
+        }
+        this.consolidate();
+        this.commitBulkOperation(event, "pollMany", count);
+        if (metrics != null)
+            metrics.record(HeapMetrics.POLL_MANY, System.nanoTime() - startTime, this.structuralCost() - startCost);
+        return count;
+    }
+
+    /**
+     * returns the candidates' workspace of pollMany, with room for at least size nodes
+     */
+    private HeapNode[] candidatesWorkspace(int size)
+    {
+        if (candidates == null)
+            candidates = new HeapNode[Math.max(size, 16)];
+        else if (candidates.length < size)
+            candidates = Arrays.copyOf(candidates, Math.max(size, 2 * candidates.length));
+        return candidates;
+    }
+
+    /**
+     * move pool[i] up the binary heap pool while it is smaller than its parent
+     */
+    private static void siftUp(HeapNode[] pool, int i)
+    {
+        HeapNode node = pool[i];
+        while (i > 0) {
+            int prnt = (i - 1) / 2;
+            if (pool[prnt].key <= node.key)
+                break;
+            pool[i] = pool[prnt];
+            i = prnt;
+        }
+        pool[i] = node;
+    }
+
+    /**
+     * move pool[i] down the binary heap pool of the given size while it is larger than a child
+     */
+    private static void siftDown(HeapNode[] pool, int size, int i)
+    {
+        if (size == 0)
+            return;
+        HeapNode node = pool[i];
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && pool[child + 1].key < pool[child].key)
+                child++;
+            if (node.key <= pool[child].key)
+                break;
+            pool[i] = pool[child];
+            i = child;
+        }
+        pool[i] = node;
+    }
+
     /**
      * 
      * pre: 0<=diff<=x.key
@@ -483,6 +1130,21 @@ public class Heap
      */
     public void decreaseKey(HeapNode x, int diff) 
     {    
+        if (metrics == null) {
+            this.decreaseKeyWithoutMetrics(x, diff);
+            return;
+        }
+        long startTime = System.nanoTime();
+        long startCost = this.structuralCost();
+        this.decreaseKeyWithoutMetrics(x, diff);
+        metrics.record(HeapMetrics.DECREASE_KEY, System.nanoTime() - startTime, this.structuralCost() - startCost);
+    }
+
+    /**
+     * decreaseKey without recording it in the metrics
+     */
+    private void decreaseKeyWithoutMetrics(HeapNode x, int diff)
+    {
         x.key -= diff;
         if (lazyDecreaseKeys) {
             decreaseLazy(x); 
@@ -494,6 +1156,45 @@ public class Heap
         this.updateMin(x); // update the min node if necessary
     }
 
+    /**
+     * 
+     * pre: 0<=diffs[i]<=nodes[i].key, nodes and diffs are of the same length
+     * 
+     * Decrease the key of every nodes[i] by diffs[i] and fix the heap.
+     * The cut nodes of all the decreases are spliced into the roots together,
+     * and the min node is updated once at the end.
+     * 
+     */
+    public void decreaseKeys(HeapNode[] nodes, int[] diffs)
+    {
+        long startTime = (metrics == null) ? 0 : System.nanoTime();
+        long startCost = (metrics == null) ? 0 : this.structuralCost();
+        HeapEvents.BulkOperation event = HeapEvents.BULK_OPERATION.isEnabled() ? new HeapEvents.BulkOperation() : null;
+        if (event != null)
+            event.begin();
+        HeapNode chain = null; // the cut nodes of all decreases
+        for (int i = 0; i < nodes.length; i++) {
+            HeapNode x = nodes[i];
+            x.key -= diffs[i];
+            if (x.parent != null && x.key < x.parent.key) { // the rule of heap is violated
+                if (lazyDecreaseKeys)
+                    chain = this.cascadingCutToChain(x, chain);
+                else
+                    this.HeapifyUp(x);
+            }
+        }
+        if (chain != null)
+            this.spliceIntoRoots(chain);
+        // only the decreased nodes that are roots now can be the new min
+        for (HeapNode x : nodes) {
+            if (x.parent == null)
+                this.updateMin(x);
+        }
+        this.commitBulkOperation(event, "decreaseKeys", nodes.length);
+        if (metrics != null)
+            metrics.record(HeapMetrics.DECREASE_KEYS, System.nanoTime() - startTime, this.structuralCost() - startCost);
+    }
+
     /**
      * 
      * Delete the x from the heap.
@@ -501,13 +1202,17 @@ public class Heap
      */
     public void delete(HeapNode x) 
 	{    		
+		long startTime = (metrics == null) ? 0 : System.nanoTime();
+		long startCost = (metrics == null) ? 0 : this.structuralCost();
 		// if it's not the min, decrease its key to be the smallest without updating the min
 		if (x != min) {
 			int diff = x.key + 1;
-            decreaseKey(x, diff);
+            decreaseKeyWithoutMetrics(x, diff);
 		}
 		// activate the deletion
-		deleteMin();
+		deleteMinWithoutMetrics();
+		if (metrics != null)
+			metrics.record(HeapMetrics.DELETE, System.nanoTime() - startTime, this.structuralCost() - startCost);
 	}
 
     /**
@@ -518,13 +1223,76 @@ public class Heap
      */
     public void meld(Heap heap2)
 	{
+		long startTime = (metrics == null) ? 0 : System.nanoTime();
+		long startCost = (metrics == null) ? 0 : this.structuralCost();
         this.lazyMeld(heap2);
         if (!this.lazyMelds) {
             this.notLazyMeld(heap2);
         }
-        return;
+		if (metrics != null)
+			metrics.record(HeapMetrics.MELD, System.nanoTime() - startTime, this.structuralCost() - startCost);
 	}
     
+    /**
+     * 
+     * Meld the heap with heap2, see meld(Heap)
+     * pre: heap2 is a Heap
+     *
+     */
+    public void meld(AddressablePriorityQueue<HeapNode> heap2)
+    {
+        this.meld((Heap) heap2);
+    }
+    
+    /**
+     * 
+     * Meld all the heaps into the first non null of them and return it, null if there
+     * are none. Null heaps and repeated heaps are skipped, and every other heap is left
+     * empty. The roots are concatenated in one pass and, without lazy melds, consolidated
+     * once at the end (in parallel when there are enough roots).
+     * pre: all the heaps have the same lazyMelds and lazyDecreaseKeys
+     *
+     */
+    public static Heap meldAll(Heap... heaps)
+    {
+        int start = 0;
+        while (start < heaps.length && heaps[start] == null)
+            start++;
+        if (start == heaps.length)
+            return null;
+        Heap result = heaps[start];
+        Set<Heap> melded = Collections.newSetFromMap(new IdentityHashMap<>());
+        melded.add(result);
+        long startTime = (result.metrics == null) ? 0 : System.nanoTime();
+        long startCost = (result.metrics == null) ? 0 : result.structuralCost();
+        HeapEvents.BulkOperation event = HeapEvents.BULK_OPERATION.isEnabled() ? new HeapEvents.BulkOperation() : null;
+        if (event != null)
+            event.begin();
+        for (int i = start + 1; i < heaps.length; i++) {
+            Heap heap = heaps[i];
+            if (heap == null || !melded.add(heap))
+                continue;
+            result.lazyMeld(heap);
+            heap.clearTrees();
+        }
+        if (!result.lazyMelds)
+            result.consolidate();
+        result.commitBulkOperation(event, "meldAll", heaps.length);
+        if (result.metrics != null)
+            result.metrics.record(HeapMetrics.MELD_ALL, System.nanoTime() - startTime, result.structuralCost() - startCost);
+        return result;
+    }
+    
+    /**
+     * 
+     * Return the key of x.
+     *
+     */
+    public int key(HeapNode x)
+    {
+        return x.key;
+    }
+
     /**
      * 
      * Return the number of elements in the heap
@@ -554,13 +1322,24 @@ public class Heap
     {
         return numMarkedNodes;
     }
+
+    /**
+     * 
+     * Return the potential, numTrees + 2 * numMarkedNodes, which pays for the
+     * amortized costs of consolidations and cascading cuts.
+     * 
+     */
+    public long potential()
+    {
+        return numTrees + 2L * numMarkedNodes;
+    }
     
     /**
      * 
      * Return the total number of links.
      * 
      */
-    public int totalLinks()
+    public long totalLinks()
     {
         return linksCnt;
     }
@@ -570,7 +1349,7 @@ public class Heap
      * Return the total number of cuts.
      * 
      */
-    public int totalCuts()
+    public long totalCuts()
     {
         return cutCnt;
     }
@@ -580,10 +1359,192 @@ public class Heap
      * Return the total heapify costs.
      * 
      */
-    public int totalHeapifyCosts()
+    public long totalHeapifyCosts()
     {
         return totalHeapifyCosts;
     }
+
+    /**
+     * 
+     * Return a snapshot of the heap's counters, see HeapStats.
+     * Takes constant time while the roots are in rank order, as after a consolidation
+     * and until the next lazy insert, meld or cut. Otherwise the max rank takes time
+     * linear in the number of trees, up to the size of a lazy heap.
+     * 
+     */
+    public HeapStats stats()
+    {
+        int maxRank = 0;
+        if (first != null && rootsInRankOrder) {
+            maxRank = first.prev.rank; // ascending ranks, the last root has the largest
+        }
+        else if (first != null) {
+            HeapNode curr = first;
+            do {
+                maxRank = Math.max(maxRank, curr.rank);
+                curr = curr.next;
+            } while (curr != first);
+        }
+        return new HeapStats(linksCnt, cutCnt, totalHeapifyCosts, numMarkedNodes, numTrees, heapSize,
+            maxRank, consolidationsCnt, deleteMinCnt);
+    }
+
+    /**
+     * 
+     * Zero the totals of links, cuts, heapify costs, consolidations and deleteMins.
+     * 
+     */
+    public void resetStats()
+    {
+        linksCnt = 0;
+        cutCnt = 0;
+        totalHeapifyCosts = 0;
+        consolidationsCnt = 0;
+        deleteMinCnt = 0;
+    }
+
+    /**
+     * 
+     * Start recording the wall time and structural cost of every insert, deleteMin,
+     * decreaseKey, delete and meld, and of every bulk insertAll, pollMany,
+     * decreaseKeys and meldAll, and return the metrics they are recorded in.
+     * While disabled (the default) an operation only checks that the metrics are null.
+     * 
+     */
+    public HeapMetrics enableMetrics()
+    {
+        if (metrics == null)
+            metrics = new HeapMetrics();
+        return metrics;
+    }
+
+    /**
+     * 
+     * Stop recording and drop the metrics.
+     * 
+     */
+    public void disableMetrics()
+    {
+        metrics = null;
+    }
+
+    /**
+     * 
+     * Return the recorded metrics, null if disabled.
+     * 
+     */
+    public HeapMetrics metrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * fill and commit the event of a bulk operation on items, if it is recorded.
+     * event is null while the event type is disabled
+     */
+    private void commitBulkOperation(HeapEvents.BulkOperation event, String operation, int items)
+    {
+        if (event != null && event.shouldCommit()) {
+            event.heapClass = "Heap";
+            event.operation = operation;
+            event.items = items;
+            event.heapSize = heapSize;
+            event.commit();
+        }
+    }
+
+    /**
+     * the links, cuts and heapify costs so far
+     */
+    private long structuralCost()
+    {
+        return linksCnt + cutCnt + totalHeapifyCosts;
+    }
+    
+    
+    /**
+     * Histograms of the wall time in nanoseconds and of the structural cost
+     * (links + cuts + heapify costs) of every operation type. A bulk operation
+     * is recorded once per call, for all its items, under its own type.
+     *  
+     */
+    public static class HeapMetrics{
+        public static final int INSERT = 0;
+        public static final int DELETE_MIN = 1;
+        public static final int DECREASE_KEY = 2;
+        public static final int DELETE = 3;
+        public static final int MELD = 4;
+        public static final int INSERT_ALL = 5;
+        public static final int POLL_MANY = 6;
+        public static final int DECREASE_KEYS = 7;
+        public static final int MELD_ALL = 8;
+        public static final String[] OPERATION_NAMES = { "insert", "deleteMin", "decreaseKey", "delete", "meld",
+            "insertAll", "pollMany", "decreaseKeys", "meldAll" };
+
+        private final LatencyHistogram[] times = new LatencyHistogram[OPERATION_NAMES.length];
+        private final LatencyHistogram[] costs = new LatencyHistogram[OPERATION_NAMES.length];
+
+        /**
+         * constructor of empty histograms
+         */
+        public HeapMetrics()
+        {
+            for (int i = 0; i < OPERATION_NAMES.length; i++) {
+                times[i] = new LatencyHistogram();
+                costs[i] = new LatencyHistogram();
+            }
+        }
+
+        /**
+         * record one operation's time and cost
+         */
+        void record(int operation, long nanos, long cost)
+        {
+            times[operation].record(nanos);
+            costs[operation].record(cost);
+        }
+
+        /**
+         * the wall times of the operation, in nanoseconds
+         */
+        public LatencyHistogram time(int operation)
+        {
+            return times[operation];
+        }
+
+        /**
+         * the structural costs of the operation
+         */
+        public LatencyHistogram cost(int operation)
+        {
+            return costs[operation];
+        }
+
+        /**
+         * forget everything recorded so far
+         */
+        public void reset()
+        {
+            for (int i = 0; i < OPERATION_NAMES.length; i++) {
+                times[i].reset();
+                costs[i].reset();
+            }
+        }
+
+        /**
+         * a line of time and cost percentiles per recorded operation type
+         */
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < OPERATION_NAMES.length; i++) {
+                if (times[i].count() > 0)
+                    builder.append(OPERATION_NAMES[i]).append(": time ns ").append(times[i])
+                        .append(", cost ").append(costs[i]).append('\n');
+            }
+            return builder.toString();
+        }
+    }
     
     
     /**
@@ -593,6 +1554,7 @@ public class Heap
     public static class HeapNode{
         public int key;
         public String info;
+        public int payload; // set by insertAllWithPayloads, fits in the node's padding
         public HeapNode child;
         public HeapNode next;
         public HeapNode prev;
@@ -0,0 +1,109 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * HeapEvents
+ *
+ * Java Flight Recorder events emitted by Heap and FibonacciHeap, to correlate the
+ * heaps' internal work with the GC and CPU samples of the same recording.
+ * All of them are disabled by default; a heap checks the cached EventType first
+ * and only allocates an event while it is enabled in a running recording.
+ * Enable them in a .jfc settings file or on the command line, e.g.
+ * -XX:StartFlightRecording:heap.Consolidate#enabled=true,heap.CascadingCut#enabled=true
+ *
+ */
+public class HeapEvents
+{
+	// the event types, to check whether an event is enabled before allocating it
+	public static final EventType CONSOLIDATE = EventType.getEventType(Consolidate.class);
+	public static final EventType CASCADING_CUT = EventType.getEventType(CascadingCut.class);
+	public static final EventType BULK_OPERATION = EventType.getEventType(BulkOperation.class);
+
+	private HeapEvents()
+	{
+	}
+
+	/**
+	 * A consolidate() call: the roots linked into at most one tree per rank.
+	 */
+	@Name("heap.Consolidate")
+	@Label("Heap Consolidate")
+	@Category("Heap")
+	@Description("Linking the roots of a heap into at most one tree per rank")
+	@Enabled(false)
+	@StackTrace(false)
+	public static class Consolidate extends Event
+	{
+		@Label("Heap Class")
+		public String heapClass;
+
+		@Label("Heap Size")
+		public int heapSize;
+
+		@Label("Roots In")
+		public int rootsIn;
+
+		@Label("Roots Out")
+		public int rootsOut;
+
+		@Label("Links")
+		public long links;
+
+		@Label("Parallel")
+		@Description("Whether the roots were consolidated in segments on the common pool")
+		public boolean parallel;
+	}
+
+	/**
+	 * A cascading cut, started by a decreaseKey or delete.
+	 */
+	@Name("heap.CascadingCut")
+	@Label("Heap Cascading Cut")
+	@Category("Heap")
+	@Description("Cutting a node and its marked ancestors to the roots")
+	@Enabled(false)
+	@StackTrace(false)
+	public static class CascadingCut extends Event
+	{
+		@Label("Heap Class")
+		public String heapClass;
+
+		@Label("Heap Size")
+		public int heapSize;
+
+		@Label("Depth")
+		@Description("The number of nodes cut, the decreased node and its marked ancestors")
+		public int depth;
+	}
+
+	/**
+	 * A bulk operation, like insertAll, pollMany, decreaseKeys or meldAll.
+	 */
+	@Name("heap.BulkOperation")
+	@Label("Heap Bulk Operation")
+	@Category("Heap")
+	@Description("An operation on many items of a heap at once")
+	@Enabled(false)
+	@StackTrace(false)
+	public static class BulkOperation extends Event
+	{
+		@Label("Heap Class")
+		public String heapClass;
+
+		@Label("Operation")
+		public String operation;
+
+		@Label("Items")
+		public int items;
+
+		@Label("Heap Size")
+		@Description("The heap's size after the operation")
+		public int heapSize;
+	}
+}
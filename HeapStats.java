@@ -0,0 +1,91 @@
+/**
+ * HeapStats
+ *
+ * A snapshot of a heap's structural counters, taken in one call by Heap.stats()
+ * or FibonacciHeap.stats().
+ * links, cuts, heapifyCosts, consolidations and deleteMins are totals since the heap
+ * was created or its stats were last reset; markedNodes, trees, size and maxRank
+ * describe the heap at the time of the snapshot. minus gives the totals of the
+ * operations between two snapshots, so a monitor can sample a heap periodically.
+ *
+ */
+public class HeapStats
+{
+	public final long links;
+	public final long cuts;
+	public final long heapifyCosts;
+	public final long markedNodes;
+	public final long trees;
+	public final long size;
+	public final long maxRank; // the largest rank of a tree, may cost a walk of the roots, see stats()
+	public final long consolidations;
+	public final long deleteMins;
+
+	/**
+	 * constructor with all the values
+	 */
+	public HeapStats(long links, long cuts, long heapifyCosts, long markedNodes, long trees, long size,
+			long maxRank, long consolidations, long deleteMins)
+	{
+		this.links = links;
+		this.cuts = cuts;
+		this.heapifyCosts = heapifyCosts;
+		this.markedNodes = markedNodes;
+		this.trees = trees;
+		this.size = size;
+		this.maxRank = maxRank;
+		this.consolidations = consolidations;
+		this.deleteMins = deleteMins;
+	}
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 *
+	 * pre: earlier is a snapshot of the same heap, taken before this one and after its last reset
+	 *
+	 * Return the totals since earlier, with this snapshot's markedNodes, trees, size and maxRank.
+	 *
+	 */
+	public HeapStats minus(HeapStats earlier)
+	{
+		return new HeapStats(links - earlier.links, cuts - earlier.cuts, heapifyCosts - earlier.heapifyCosts,
+			markedNodes, trees, size, maxRank,
+			consolidations - earlier.consolidations, deleteMins - earlier.deleteMins);
+	}
+
+	/**
+	 *
+	 * Return the structural cost, links + cuts + heapify costs.
+	 *
+	 */
+	public long structuralCost()
+	{
+		return links + cuts + heapifyCosts;
+	}
+
+	/**
+	 *
+	 * Return the potential, trees + 2 * markedNodes. Sampled over time, a potential
+	 * rising with the marked nodes means the decreaseKeys build up cascading cuts.
+	 *
+	 */
+	public long potential()
+	{
+		return trees + 2 * markedNodes;
+	}
+
+	/**
+	 *
+	 * Return all the values in one line
+	 *
+	 */
+	public String toString()
+	{
+		return "links=" + links + " cuts=" + cuts + " heapifyCosts=" + heapifyCosts
+			+ " markedNodes=" + markedNodes + " trees=" + trees + " size=" + size + " maxRank=" + maxRank
+			+ " potential=" + this.potential() + " consolidations=" + consolidations + " deleteMins=" + deleteMins;
+	}
+}
@@ -0,0 +1,683 @@
+import java.util.Arrays;
+
+/**
+ * IntFibonacciHeap
+ *
+ * An implementation of Fibonacci heap over positive integers
+ * in which the nodes are slots of parallel int arrays instead of objects.
+ * insert returns the node's slot (an int handle), freed slots are recycled.
+ * meld is not the O(1) splice of Heap: it copies the other heap's nodes into
+ * this heap's arrays in O(size of the other heap), and shifts their handles by
+ * the offset it returns. Prefer Heap or FibonacciHeap for meld-heavy workloads.
+ *
+ */
+public class IntFibonacciHeap
+{
+	public static final int NIL = -1; // the handle of "no node"
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// the nodes' fields, indexed by handle
+	private int[] key;
+	private int[] parent;
+	private int[] child;
+	private int[] next; // also chains the free slots
+	private int[] prev;
+	private int[] rank;
+	private boolean[] mark;
+
+	private int slots; // number of slots ever handed out
+	private int freeList; // first recycled slot
+	private int min;
+	private int first; // handle of the first tree's root
+	private int heapSize; // heap's size
+	private int numTrees;
+	private long linksCnt;
+	private long cutCnt;
+	private int[] rankBuckets; // consolidation workspace, indexed by rank
+	private int rankBucketsMaxSize; // the largest heap size rankBuckets can hold the ranks of
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 * empty constructor
+	 */
+	public IntFibonacciHeap(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * constructor of an empty heap with room for capacity nodes
+	 */
+	public IntFibonacciHeap(int capacity){
+		capacity = Math.max(capacity, 1);
+		key = new int[capacity];
+		parent = new int[capacity];
+		child = new int[capacity];
+		next = new int[capacity];
+		prev = new int[capacity];
+		rank = new int[capacity];
+		mark = new boolean[capacity];
+		this.clear();
+	}
+
+	/**
+	 * pre: key > 0
+	 *
+	 * Insert key into the heap and return the handle of the newly generated node.
+	 *
+	 */
+	public int insert(int key) {
+		int newNode = this.allocate(key);
+		// if the heap was empty
+		if (heapSize == 0) {
+			first = newNode;
+			min = newNode;
+		}
+		else {
+			this.insertBefore(newNode, first);
+			first = newNode;
+			updateMin(newNode); // assign the min field to the newNode if necessary
+		}
+		heapSize++;
+		numTrees++;
+		return newNode;
+	}
+
+	/**
+	 *
+	 * Return the handle of the minimal node, NIL if empty.
+	 *
+	 */
+	public int findMin(){
+		return min;
+	}
+
+	/**
+	 *
+	 * Return the key of the node with handle x.
+	 *
+	 */
+	public int key(int x){
+		return key[x];
+	}
+
+	/**
+	 *
+	 * Delete the minimal item
+	 *
+	 */
+	public void deleteMin(){
+		this.genericDelete(min, true);
+	}
+
+	/**
+	 *
+	 * pre: 0<diff<key(x)
+	 *
+	 * Decrease the key of x by diff and fix the heap.
+	 *
+	 */
+	public void decreaseKey(int x, int diff)
+	{
+		this.decreaseKeyWithoutMinUpdate(x, diff); // decrease x's key and initiate cuts accordingly
+		this.updateMin(x); // update the min node
+	}
+
+	/**
+	 *
+	 * Delete x from the heap
+	 *
+	 */
+	public void delete(int x)
+	{
+		// if it's not the min, decrease its key to be the smallest without updating the min
+		if (x != min) {
+			int diff = (key[x] - key[min]) + 1;
+			this.decreaseKeyWithoutMinUpdate(x, diff);
+		}
+		// activate the deletion
+		this.genericDelete(x, x == min);
+	}
+
+	/**
+	 *
+	 * Meld the heap with heap2.
+	 * heap2's nodes are copied into this heap's arrays, heap2 is left empty.
+	 * This costs O(heap2.size()) and moves heap2's nodes to new slots.
+	 * Returns the offset to add to heap2's handles to get their handles in this heap.
+	 *
+	 */
+	public int meld(IntFibonacciHeap heap2)
+	{
+		// the other heap is empty so no changes required
+		if (heap2 == null || heap2 == this || heap2.size() == 0)
+			return 0;
+
+		int offset = slots;
+		this.ensureCapacity(slots + heap2.slots);
+		for (int i = 0; i < heap2.slots; i++) {
+			int x = i + offset;
+			key[x] = heap2.key[i];
+			parent[x] = shift(heap2.parent[i], offset);
+			child[x] = shift(heap2.child[i], offset);
+			next[x] = shift(heap2.next[i], offset);
+			prev[x] = shift(heap2.prev[i], offset);
+			rank[x] = heap2.rank[i];
+			mark[x] = heap2.mark[i];
+		}
+		slots += heap2.slots;
+		// recycle heap2's free slots in this heap
+		for (int i = heap2.freeList; i != NIL; i = heap2.next[i])
+			this.free(i + offset);
+
+		int first2 = heap2.first + offset;
+		int min2 = heap2.min + offset;
+		if (heapSize == 0) {
+			first = first2;
+			min = min2;
+		}
+		else {
+			//connecting 'edges'
+			int lastNodeHeap2 = prev[first2];
+			this.connectNext(prev[first], first2);
+			this.connectNext(lastNodeHeap2, first);
+			// update the min field if needed
+			this.updateMin(min2);
+		}
+
+		// update attributes
+		heapSize += heap2.heapSize;
+		numTrees += heap2.numTrees;
+		linksCnt += heap2.linksCnt;
+		cutCnt += heap2.cutCnt;
+		heap2.clear();
+		return offset;
+	}
+
+	/**
+	 *
+	 * Return a view of this heap as an AddressablePriorityQueue with SlotHandles.
+	 * Its handles hold the slots of this heap and stay valid across the view's melds.
+	 *
+	 */
+	public AddressablePriorityQueue<SlotHandle> asQueue()
+	{
+		return new QueueView();
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the heap
+	 *
+	 */
+	public int size()
+	{
+		return heapSize;
+	}
+
+	/**
+	 *
+	 * Return the number of trees in the heap.
+	 *
+	 */
+	public int numTrees()
+	{
+		return numTrees;
+	}
+
+	/**
+	 *
+	 * Return the total number of links.
+	 *
+	 */
+	public long totalLinks()
+	{
+		return linksCnt;
+	}
+
+	/**
+	 *
+	 * Return the total number of cuts.
+	 *
+	 */
+	public long totalCuts()
+	{
+		return cutCnt;
+	}
+
+
+	/* #################################################################################
+	//                               help methods
+	#####################################################################################*/
+
+	/**
+	 * make this heap empty, keeping its arrays
+	 */
+	private void clear()
+	{
+		slots = 0;
+		freeList = NIL;
+		min = NIL;
+		first = NIL;
+		heapSize = 0;
+		numTrees = 0;
+		linksCnt = 0;
+		cutCnt = 0;
+	}
+
+	/**
+	 * returns a slot for a new single node with the given key,
+	 * a recycled one if there is any
+	 */
+	private int allocate(int k)
+	{
+		int x;
+		if (freeList != NIL) {
+			x = freeList;
+			freeList = next[x];
+		}
+		else {
+			this.ensureCapacity(slots + 1);
+			x = slots++;
+		}
+		key[x] = k;
+		parent[x] = NIL;
+		child[x] = NIL;
+		next[x] = x;
+		prev[x] = x;
+		rank[x] = 0;
+		mark[x] = false;
+		return x;
+	}
+
+	/**
+	 * chain slot x to the free slots
+	 */
+	private void free(int x)
+	{
+		next[x] = freeList;
+		freeList = x;
+	}
+
+	/**
+	 * grow the arrays to hold at least capacity slots
+	 */
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= key.length)
+			return;
+		int newCapacity = Math.max(capacity, key.length * 2);
+		key = Arrays.copyOf(key, newCapacity);
+		parent = Arrays.copyOf(parent, newCapacity);
+		child = Arrays.copyOf(child, newCapacity);
+		next = Arrays.copyOf(next, newCapacity);
+		prev = Arrays.copyOf(prev, newCapacity);
+		rank = Arrays.copyOf(rank, newCapacity);
+		mark = Arrays.copyOf(mark, newCapacity);
+	}
+
+	/**
+	 * returns handle x moved by offset, NIL stays NIL
+	 */
+	private static int shift(int x, int offset)
+	{
+		return x == NIL ? NIL : x + offset;
+	}
+
+	/**
+	 * connects y to be the next of x
+	 */
+	private void connectNext(int x, int y)
+	{
+		next[x] = y;
+		prev[y] = x;
+	}
+
+	/**
+	 * inserts x to be before y by adjusting
+	 * the pointers to be in the order of: prev, x, y
+	 */
+	private void insertBefore(int x, int y)
+	{
+		int preNode = prev[y];
+		next[x] = y;
+		prev[x] = preNode;
+		prev[y] = x;
+		next[preNode] = x;
+	}
+
+	/**
+	 * relocate the input node to the heap's roots
+	 */
+	private void insertNodeToRoots(int x){
+		// insert node before first with the appropriate pointers attached
+		this.insertBefore(x, first);
+		parent[x] = NIL;
+		first = x;
+		numTrees++; // update counter
+		mark[x] = false;
+	}
+
+	/**
+	 *
+	 * For each node in the chain of the input node, remove its parent
+	 *
+	 */
+	private void removeParents(int x){
+		int curr = x;
+		do {
+			parent[curr] = NIL;
+			curr = next[curr];
+			cutCnt ++;
+		} while (curr != x);
+	}
+
+	/**
+	 * Deletes the input node considering the need for consolidating according to isMin parameter
+	 */
+	private void genericDelete(int x, boolean isMin) {
+		// edge case of a single-node-heap
+		if (heapSize == 1)
+		{
+			// make this heap an empty heap with the previous counters
+			first = NIL;
+			min = NIL;
+			heapSize = 0;
+			numTrees = 0;
+			this.free(x);
+			return;
+		}
+		// checks if the heap includes a single tree
+		if (numTrees == 1) {
+			first = child[x];
+			// for each child, remove the parent
+			this.removeParents(first);
+		}
+		else {
+			if (first == x)
+				first = next[x];
+			// remove node x
+			this.connectNext(prev[x], next[x]);
+
+			// add the deleted node's children as trees to the heap
+			if (child[x] != NIL) {
+				int second = next[first];
+				int currChild = child[x];
+				int lastChild = prev[currChild];
+				// for each child, remove the parent
+				this.removeParents(currChild);
+				// connect the children to the heap's roots
+				this.connectNext(first, currChild);
+				this.connectNext(lastChild, second);
+			}
+		}
+		heapSize -= 1;
+		numTrees += rank[x] - 1;
+		this.free(x);
+
+		// if it's DeleteMin() - consolidate, link and fix the heap to be a valid binomial heap
+		if (isMin)
+			this.consolidate();
+	}
+
+	/**
+	 * consolidate the heap's trees as a valid binomial heap
+	 */
+	private void consolidate()
+	{
+		// the "buckets" in which we keep the trees of same ranks
+		int[] buckets = this.consolidationBuckets();
+		int topRank = 0;
+
+		// iterate through the heap
+		int curr = first;
+		for (int i = 0; i < numTrees; i++)
+		{
+			// separate curr from others, keep a pointer for the next tree
+			int nxt = next[curr];
+			next[curr] = curr;
+			prev[curr] = curr;
+
+			int insideTree = buckets[rank[curr]];
+			while (insideTree != NIL)
+			{
+				buckets[rank[curr]] = NIL; // remove the inside tree from its bucket
+				curr = this.link(curr, insideTree); // assign curr to be the root of the linked tree
+				insideTree = buckets[rank[curr]]; // assign to the next bucket
+			}
+			buckets[rank[curr]] = curr; // insert the new tree to the relevant bucket
+			if (rank[curr] > topRank)
+				topRank = rank[curr];
+			curr = nxt;
+		}
+		this.fromBucketsToHeap(buckets, topRank); // update the heap to match the trees in the buckets
+	}
+
+	/**
+	 * returns the consolidation workspace, grown only when the heap's size
+	 * exceeds the largest size it was allocated for
+	 */
+	private int[] consolidationBuckets()
+	{
+		if (rankBuckets == null || heapSize > rankBucketsMaxSize) {
+			int bitLength = 32 - Integer.numberOfLeadingZeros(heapSize);
+			rankBuckets = new int[bitLength + (bitLength >> 1) + 2];
+			Arrays.fill(rankBuckets, NIL);
+			rankBucketsMaxSize = (1 << bitLength) - 1;
+		}
+		return rankBuckets;
+	}
+
+	/**
+	 * pre: x, y roots in the heap
+	 * link the two nodes according to heaps' rule
+	 * returns the root of the linked tree
+	 */
+	private int link(int x, int y)
+	{
+		// make x node the smaller one
+		if (key[y] < key[x]) {
+			int temp = x;
+			x = y;
+			y = temp;
+		}
+
+		// consider whether x node has no children
+		if (child[x] == NIL)
+			next[y] = y;
+		else {
+			this.connectNext(y, next[child[x]]);
+			this.connectNext(child[x], y);
+		}
+		// connect parent - child
+		child[x] = y;
+		parent[y] = x;
+		// update rank
+		rank[x]++;
+		// increase the heap's links count by 1
+		linksCnt++;
+		return x;
+	}
+
+	/**
+	 * creates a valid binomial heap out of buckets' nodes
+	 * and clears the buckets up to topRank for the next consolidation
+	 */
+	private void fromBucketsToHeap(int[] buckets, int topRank)
+	{
+		min = NIL;
+		numTrees = 0;
+		// go over the nodes in buckets from the biggest to smallest
+		for (int i = topRank; i >= 0; i--) {
+			int x = buckets[i];
+			if (x != NIL)
+			{
+				buckets[i] = NIL;
+				// checks if we didn't encounter real nodes yet
+				if (min == NIL) {
+					first = x;
+					min = x;
+				}
+				else {
+					this.insertBefore(x, first);
+					first = x;
+					this.updateMin(x);
+				}
+				// increase the trees counter by one for each inserted tree
+				numTrees += 1;
+			}
+		}
+	}
+
+	/**
+	 * pre: 0<diff<key(x)
+	 * Decrease the key of x by diff and fix the heap without updating the min node
+	 */
+	private void decreaseKeyWithoutMinUpdate(int x, int diff)
+	{
+		key[x] -= diff;
+		if (parent[x] != NIL && key[x] < key[parent[x]]) // the rule of heap is violated
+			this.cascadingCut(x); // initiate the cascading cut process
+	}
+
+	/**
+	 * pre: x is in heap
+	 * cut x from its parent and add it to the heap's roots
+	 */
+	private void cut(int x)
+	{
+		int prnt = parent[x];
+		// check if x is an only child
+		if (next[x] == x)
+			child[prnt] = NIL;
+		else {
+			child[prnt] = next[x];
+			this.connectNext(prev[x], next[x]); // omit x from its original chain
+		}
+		// insert x to the heap's roots
+		this.insertNodeToRoots(x);
+		// update parameters
+		rank[prnt]--;
+		cutCnt++;
+	}
+
+	/**
+	 * cut x from its parent and continue upwards while the parents are marked
+	 */
+	private void cascadingCut(int x)
+	{
+		int prnt = parent[x];
+		this.cut(x);
+		// climb while prnt is a marked non-root
+		while (parent[prnt] != NIL && mark[prnt]) {
+			int grandParent = parent[prnt];
+			this.cut(prnt);
+			prnt = grandParent;
+		}
+		// mark the first unmarked non-root ancestor
+		if (parent[prnt] != NIL)
+			mark[prnt] = true;
+	}
+
+	/**
+	 * updates the min field to point to the smaller node
+	 */
+	private void updateMin(int x)
+	{
+		if (key[x] < key[min])
+			min = x;
+	}
+
+
+	/* #################################################################################
+	//                               QueueView class
+	#####################################################################################*/
+	/**
+	 * This heap as an AddressablePriorityQueue with SlotHandles.
+	 * The infos are dropped.
+	 * meld copies the other heap's nodes, O(size of the other heap), and moves
+	 * their handles to the new slots.
+	 */
+	private class QueueView implements AddressablePriorityQueue<SlotHandle>
+	{
+		private final SlotHandle.Table handles = new SlotHandle.Table();
+
+		IntFibonacciHeap heap()
+		{
+			return IntFibonacciHeap.this;
+		}
+
+		public SlotHandle insert(int key, String info)
+		{
+			return handles.get(IntFibonacciHeap.this.insert(key));
+		}
+
+		public SlotHandle findMin()
+		{
+			int x = IntFibonacciHeap.this.findMin();
+			return x == NIL ? null : handles.get(x);
+		}
+
+		public void deleteMin()
+		{
+			int x = IntFibonacciHeap.this.findMin();
+			if (x == NIL)
+				return;
+			handles.remove(x);
+			IntFibonacciHeap.this.deleteMin();
+		}
+
+		public void decreaseKey(SlotHandle x, int diff)
+		{
+			IntFibonacciHeap.this.decreaseKey((int) x.slot, diff);
+		}
+
+		public void delete(SlotHandle x)
+		{
+			int slot = (int) x.slot;
+			handles.remove(slot);
+			IntFibonacciHeap.this.delete(slot);
+		}
+
+		public void meld(AddressablePriorityQueue<SlotHandle> other)
+		{
+			QueueView view = (QueueView) other;
+			if (view == this)
+				return;
+			int offset = IntFibonacciHeap.this.meld(view.heap());
+			handles.moveFrom(view.handles, offset);
+		}
+
+		public int key(SlotHandle x)
+		{
+			return IntFibonacciHeap.this.key((int) x.slot);
+		}
+
+		public int size()
+		{
+			return IntFibonacciHeap.this.size();
+		}
+
+		public int numTrees()
+		{
+			return IntFibonacciHeap.this.numTrees();
+		}
+
+		public long totalLinks()
+		{
+			return IntFibonacciHeap.this.totalLinks();
+		}
+
+		public long totalCuts()
+		{
+			return IntFibonacciHeap.this.totalCuts();
+		}
+
+		public long totalHeapifyCosts()
+		{
+			return 0;
+		}
+	}
+}
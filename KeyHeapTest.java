@@ -0,0 +1,184 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+public class KeyHeapTest {
+
+    private static final int TRACE_LENGTH = 10000;
+    private static final int MAX_KEY = 100000;
+
+    public static void main(String[] args) {
+        String[] failedTests = new String[3];
+        int failCount = 0;
+        int testCount = 3;
+
+        if (!testLongKeyHeap(new Random(1))) {
+            failedTests[failCount++] = "LongKeyHeap: random trace against java.util.PriorityQueue";
+        }
+
+        if (!testDoubleKeyHeap(new Random(2))) {
+            failedTests[failCount++] = "DoubleKeyHeap: random trace against java.util.PriorityQueue";
+        }
+
+        if (!testGenericHeap(new Random(3))) {
+            failedTests[failCount++] = "GenericHeap: random trace against java.util.PriorityQueue";
+        }
+
+        System.out.println("Passed: " + (testCount - failCount) + " / " + testCount);
+        if (failCount > 0) {
+            System.out.println("Failed tests:");
+            for (int i = 0; i < failCount; i++) {
+                System.out.println("  - " + failedTests[i]);
+            }
+        } else {
+            System.out.println("All tests passed!");
+        }
+    }
+
+    /**
+     * Runs inserts, decreaseKeys, deletes, deleteMins and melds on a LongKeyHeap in
+     * all four lazy modes and on a java.util.PriorityQueue of the keys, with keys
+     * beyond the int range.
+     */
+    private static boolean testLongKeyHeap(Random random) {
+        for (int mode = 0; mode < 4; mode++) {
+            LongKeyHeap<String> heap = new LongKeyHeap<>((mode & 1) != 0, (mode & 2) != 0);
+            PriorityQueue<Long> reference = new PriorityQueue<>();
+            List<LongKeyHeap.HeapNode<String>> nodes = new ArrayList<>();
+            for (int op = 0; op < TRACE_LENGTH; op++) {
+                int choice = random.nextInt(10);
+                if (choice < 4 || nodes.isEmpty()) {
+                    long key = random.nextLong() >>> 2; // beyond the int range
+                    nodes.add(heap.insert(key, null));
+                    reference.add(key);
+                } else if (choice < 6) {
+                    LongKeyHeap.HeapNode<String> x = nodes.get(random.nextInt(nodes.size()));
+                    long diff = x.key / (1 + random.nextInt(8));
+                    reference.remove(x.key);
+                    heap.decreaseKey(x, diff);
+                    reference.add(x.key);
+                } else if (choice < 7) {
+                    LongKeyHeap.HeapNode<String> x = nodes.remove(random.nextInt(nodes.size()));
+                    reference.remove(x.key);
+                    heap.delete(x);
+                } else if (choice < 9) {
+                    LongKeyHeap.HeapNode<String> min = heap.findMin();
+                    if (min == null || min.key != reference.poll()) {
+                        return false;
+                    }
+                    nodes.remove(min);
+                    heap.deleteMin();
+                } else {
+                    LongKeyHeap<String> other = new LongKeyHeap<>((mode & 1) != 0, (mode & 2) != 0);
+                    for (int i = random.nextInt(20); i > 0; i--) {
+                        long key = random.nextLong() >>> 2;
+                        nodes.add(other.insert(key, null));
+                        reference.add(key);
+                    }
+                    heap.meld(other);
+                }
+                if (heap.size() != reference.size()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The same trace on a DoubleKeyHeap, with negative keys.
+     */
+    private static boolean testDoubleKeyHeap(Random random) {
+        for (int mode = 0; mode < 4; mode++) {
+            DoubleKeyHeap<String> heap = new DoubleKeyHeap<>((mode & 1) != 0, (mode & 2) != 0);
+            PriorityQueue<Double> reference = new PriorityQueue<>();
+            List<DoubleKeyHeap.HeapNode<String>> nodes = new ArrayList<>();
+            for (int op = 0; op < TRACE_LENGTH; op++) {
+                int choice = random.nextInt(10);
+                if (choice < 4 || nodes.isEmpty()) {
+                    double key = random.nextGaussian() * MAX_KEY; // negative keys too
+                    nodes.add(heap.insert(key, null));
+                    reference.add(key);
+                } else if (choice < 6) {
+                    DoubleKeyHeap.HeapNode<String> x = nodes.get(random.nextInt(nodes.size()));
+                    reference.remove(x.key);
+                    heap.decreaseKey(x, random.nextDouble() * MAX_KEY);
+                    reference.add(x.key);
+                } else if (choice < 7) {
+                    DoubleKeyHeap.HeapNode<String> x = nodes.remove(random.nextInt(nodes.size()));
+                    reference.remove(x.key);
+                    heap.delete(x);
+                } else if (choice < 9) {
+                    DoubleKeyHeap.HeapNode<String> min = heap.findMin();
+                    if (min == null || min.key != reference.poll()) {
+                        return false;
+                    }
+                    nodes.remove(min);
+                    heap.deleteMin();
+                } else {
+                    DoubleKeyHeap<String> other = new DoubleKeyHeap<>((mode & 1) != 0, (mode & 2) != 0);
+                    for (int i = random.nextInt(20); i > 0; i--) {
+                        double key = random.nextGaussian() * MAX_KEY;
+                        nodes.add(other.insert(key, null));
+                        reference.add(key);
+                    }
+                    heap.meld(other);
+                }
+                if (heap.size() != reference.size()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The same trace on a GenericHeap of strings, decreasing a key to one of its prefixes.
+     */
+    private static boolean testGenericHeap(Random random) {
+        for (int mode = 0; mode < 4; mode++) {
+            GenericHeap<String, Integer> heap = new GenericHeap<>((mode & 1) != 0, (mode & 2) != 0);
+            PriorityQueue<String> reference = new PriorityQueue<>();
+            List<GenericHeap.HeapNode<String, Integer>> nodes = new ArrayList<>();
+            for (int op = 0; op < TRACE_LENGTH; op++) {
+                int choice = random.nextInt(10);
+                if (choice < 4 || nodes.isEmpty()) {
+                    String key = Integer.toString(random.nextInt(MAX_KEY), 36);
+                    nodes.add(heap.insert(key, op));
+                    reference.add(key);
+                } else if (choice < 6) {
+                    GenericHeap.HeapNode<String, Integer> x = nodes.get(random.nextInt(nodes.size()));
+                    // a prefix is never greater than the string
+                    String key = x.key.substring(0, random.nextInt(x.key.length() + 1));
+                    reference.remove(x.key);
+                    heap.decreaseKey(x, key);
+                    reference.add(key);
+                } else if (choice < 7) {
+                    GenericHeap.HeapNode<String, Integer> x = nodes.remove(random.nextInt(nodes.size()));
+                    reference.remove(x.key);
+                    heap.delete(x);
+                } else if (choice < 9) {
+                    GenericHeap.HeapNode<String, Integer> min = heap.findMin();
+                    if (min == null || !min.key.equals(reference.poll())) {
+                        return false;
+                    }
+                    nodes.remove(min);
+                    heap.deleteMin();
+                } else {
+                    GenericHeap<String, Integer> other = new GenericHeap<>((mode & 1) != 0, (mode & 2) != 0);
+                    for (int i = random.nextInt(20); i > 0; i--) {
+                        String key = Integer.toString(random.nextInt(MAX_KEY), 36);
+                        nodes.add(other.insert(key, op));
+                        reference.add(key);
+                    }
+                    heap.meld(other);
+                }
+                if (heap.size() != reference.size()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
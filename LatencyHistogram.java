@@ -0,0 +1,148 @@
+import java.util.Arrays;
+
+/**
+ * LatencyHistogram
+ *
+ * A compact histogram of non negative long values, like latencies in nanoseconds
+ * or structural costs. Values below 8 have a bucket each, larger values are bucketed
+ * by their highest bit into 8 sub buckets, so a bucket spans at most 1/8 of its
+ * values: percentiles are reported as their bucket's upper bound, at most 12.5% high.
+ * 496 buckets cover every long, in about 4KB.
+ *
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final long[] counts = new long[NUM_BUCKETS];
+	private long count;
+	private long sum;
+	private long max;
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 *
+	 * Record value, negative values are recorded as 0.
+	 *
+	 */
+	public void record(long value)
+	{
+		value = Math.max(value, 0);
+		counts[bucketOf(value)]++;
+		count++;
+		sum += value;
+		if (value > max)
+			max = value;
+	}
+
+	/**
+	 *
+	 * pre: 0<=quantile<=1
+	 *
+	 * Return the value at the quantile (0.5 for the median), up to the bucket's
+	 * precision and never above the max. 0 if nothing was recorded.
+	 *
+	 */
+	public long percentile(double quantile)
+	{
+		if (count == 0)
+			return 0;
+		long rank = Math.max((long) Math.ceil(quantile * count), 1);
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min(upperBoundOf(i), max);
+		}
+		return max;
+	}
+
+	/**
+	 *
+	 * Return the number of recorded values
+	 *
+	 */
+	public long count()
+	{
+		return count;
+	}
+
+	/**
+	 *
+	 * Return the largest recorded value, 0 if none
+	 *
+	 */
+	public long max()
+	{
+		return max;
+	}
+
+	/**
+	 *
+	 * Return the mean of the recorded values, 0 if none
+	 *
+	 */
+	public double mean()
+	{
+		return count == 0 ? 0 : sum / (double) count;
+	}
+
+	/**
+	 *
+	 * Forget all the recorded values
+	 *
+	 */
+	public void reset()
+	{
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	/**
+	 *
+	 * Return the count, p50, p99, p999 and max
+	 *
+	 */
+	public String toString()
+	{
+		return "count=" + count + " p50=" + this.percentile(0.5) + " p99=" + this.percentile(0.99)
+			+ " p999=" + this.percentile(0.999) + " max=" + max;
+	}
+
+
+	/* #################################################################################
+	//                               help methods
+	#####################################################################################*/
+
+	/**
+	 * the bucket of the non negative value
+	 */
+	private static int bucketOf(long value)
+	{
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+		int top = (int) (value >>> shift); // in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+		return (shift + 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+	}
+
+	/**
+	 * the largest value in bucket i
+	 */
+	private static long upperBoundOf(int i)
+	{
+		if (i < SUB_BUCKETS)
+			return i;
+		int shift = i / SUB_BUCKETS - 1;
+		long top = SUB_BUCKETS + i % SUB_BUCKETS;
+		long upper = ((top + 1) << shift) - 1;
+		return upper < 0 ? Long.MAX_VALUE : upper; // the last bucket overflows
+	}
+}
@@ -0,0 +1,63 @@
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LockedHeap
+ *
+ * A Heap (lazyMelds=true, lazyDecreaseKeys=true) with its lock, publishing its
+ * minimal key and size for lock free reads: a shard of ConcurrentFibonacciHeap
+ * and a heap of MultiQueue. The heap is accessed only while holding the lock.
+ *
+ */
+class LockedHeap
+{
+	final ReentrantLock lock = new ReentrantLock();
+	private Heap heap = new Heap(true, true);
+	volatile int minKey = Integer.MAX_VALUE;
+	volatile int size;
+
+	/**
+	 * pre: the lock is held, key > 0
+	 * insert (key,info) into the heap
+	 */
+	void insert(int key, String info)
+	{
+		heap.insert(key, info);
+		this.publish();
+	}
+
+	/**
+	 * pre: the lock is held
+	 * delete the minimum of the heap and return its HeapNode, null if empty
+	 */
+	Heap.HeapNode deleteMin()
+	{
+		Heap.HeapNode node = heap.findMin();
+		if (node == null)
+			return null;
+		heap.deleteMin();
+		this.publish();
+		return node;
+	}
+
+	/**
+	 * pre: the lock is held
+	 * return the heap and replace it by an empty one
+	 */
+	Heap drain()
+	{
+		Heap drained = heap;
+		heap = new Heap(true, true);
+		this.publish();
+		return drained;
+	}
+
+	/**
+	 * update the published minimal key and size
+	 */
+	private void publish()
+	{
+		Heap.HeapNode min = heap.findMin();
+		minKey = (min == null) ? Integer.MAX_VALUE : min.key;
+		size = heap.size();
+	}
+}
@@ -0,0 +1,207 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MultiQueue
+ *
+ * A relaxed thread safe priority queue over positive integers made of
+ * c * numThreads Heaps (lazyMelds=true, lazyDecreaseKeys=true), each behind a try-lock.
+ * insert goes to a random free heap, deleteMin samples two random heaps and
+ * deletes the minimum of the one whose minimum is smaller. The deleted item is
+ * not always the global minimum; the rank error measures by how much.
+ *
+ */
+public class MultiQueue
+{
+	private static final int SAMPLES_BEFORE_SCAN = 16; // failed samples before scanning all heaps
+	private static final int SAMPLES_BEFORE_LOCK = 16; // busy heaps sampled by insert before it waits
+
+	public final boolean trackRankError;
+	private final LockedHeap[] heaps;
+	private final LongAdder rankErrorSum = new LongAdder();
+	private final LongAdder deletions = new LongAdder();
+	private final AtomicLong maxRankError = new AtomicLong();
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 * constructor of an empty queue of c heaps per thread.
+	 * when trackRankError is true every deleteMin measures its rank error
+	 */
+	public MultiQueue(int numThreads, int c, boolean trackRankError)
+	{
+		this.trackRankError = trackRankError;
+		this.heaps = new LockedHeap[Math.max(numThreads * c, 2)];
+		for (int i = 0; i < heaps.length; i++)
+			heaps[i] = new LockedHeap();
+	}
+
+	/**
+	 * pre: key > 0
+	 *
+	 * Insert (key,info) into a random heap.
+	 * Samples random heaps until one is free, after SAMPLES_BEFORE_LOCK busy
+	 * samples it waits for the lock of the next random heap instead of spinning.
+	 * No handle is returned: a node may only be changed under its heap's lock,
+	 * so the items can't be decreased or deleted by handle.
+	 *
+	 */
+	public void insert(int key, String info)
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int attempt = 0; attempt < SAMPLES_BEFORE_LOCK; attempt++) {
+			LockedHeap heap = heaps[random.nextInt(heaps.length)];
+			if (heap.lock.tryLock()) {
+				try {
+					heap.insert(key, info);
+					return;
+				} finally {
+					heap.lock.unlock();
+				}
+			}
+		}
+		// the sampled heaps were busy, wait for one
+		LockedHeap heap = heaps[random.nextInt(heaps.length)];
+		heap.lock.lock();
+		try {
+			heap.insert(key, info);
+		} finally {
+			heap.lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * Delete an item with a small key and return its HeapNode, null if empty.
+	 *
+	 */
+	public Heap.HeapNode deleteMin()
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int attempt = 0; attempt < SAMPLES_BEFORE_SCAN; attempt++) {
+			LockedHeap a = heaps[random.nextInt(heaps.length)];
+			LockedHeap b = heaps[random.nextInt(heaps.length)];
+			LockedHeap heap = (b.minKey < a.minKey) ? b : a;
+			if (heap.minKey == Integer.MAX_VALUE) // both are empty
+				continue;
+			Heap.HeapNode node = this.tryDeleteMin(heap);
+			if (node != null)
+				return node;
+		}
+		// the sampled heaps were empty or busy, look at all the heaps
+		while (true) {
+			LockedHeap minHeap = null;
+			for (LockedHeap heap : heaps) {
+				if (heap.minKey != Integer.MAX_VALUE && (minHeap == null || heap.minKey < minHeap.minKey))
+					minHeap = heap;
+			}
+			if (minHeap == null)
+				return null;
+			minHeap.lock.lock();
+			try {
+				Heap.HeapNode node = this.deleteMinLocked(minHeap);
+				if (node != null)
+					return node;
+			} finally {
+				minHeap.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the queue
+	 *
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (LockedHeap heap : heaps)
+			size += heap.size;
+		return size;
+	}
+
+	/**
+	 *
+	 * Return the average rank error of the deletions since the last reset:
+	 * the number of heaps whose minimum was smaller than the deleted key,
+	 * a lower bound on the number of smaller items left in the queue.
+	 *
+	 */
+	public double averageRankError()
+	{
+		long count = deletions.sum();
+		return count == 0 ? 0 : rankErrorSum.sum() / (double) count;
+	}
+
+	/**
+	 *
+	 * Return the maximal rank error of the deletions since the last reset.
+	 *
+	 */
+	public long maxRankError()
+	{
+		return maxRankError.get();
+	}
+
+	/**
+	 *
+	 * Reset the rank error statistics.
+	 *
+	 */
+	public void resetRankError()
+	{
+		rankErrorSum.reset();
+		deletions.reset();
+		maxRankError.set(0);
+	}
+
+
+	/* #################################################################################
+	//                               help methods
+	#####################################################################################*/
+
+	/**
+	 * delete the minimum of heap if its lock is free, null if busy or empty
+	 */
+	private Heap.HeapNode tryDeleteMin(LockedHeap heap)
+	{
+		if (!heap.lock.tryLock())
+			return null;
+		try {
+			return this.deleteMinLocked(heap);
+		} finally {
+			heap.lock.unlock();
+		}
+	}
+
+	/**
+	 * pre: heap's lock is held
+	 * delete the minimum of heap and record its rank error, null if empty
+	 */
+	private Heap.HeapNode deleteMinLocked(LockedHeap heap)
+	{
+		Heap.HeapNode node = heap.deleteMin();
+		if (node != null && trackRankError)
+			this.recordRankError(node.key);
+		return node;
+	}
+
+	/**
+	 * count the heaps whose published minimum is smaller than key
+	 */
+	private void recordRankError(int key)
+	{
+		long rankError = 0;
+		for (LockedHeap heap : heaps) {
+			if (heap.minKey < key)
+				rankError++;
+		}
+		rankErrorSum.add(rankError);
+		deletions.increment();
+		maxRankError.accumulateAndGet(rankError, Math::max);
+	}
+}
@@ -0,0 +1,951 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * OffHeapHeap
+ *
+ * An implementation of Fibonacci heap over positive integers, with the
+ * lazyMelds and lazyDecreaseKeys options of Heap, whose nodes are fixed width
+ * records in direct (native) memory instead of objects.
+ * The records are allocated from slabs that are added as the heap grows,
+ * a node's handle is the long index of its record, freed records are recycled.
+ * meld is not the O(1) splice of Heap: it copies the other heap's records into
+ * this heap's slabs in O(size of the other heap), and shifts their handles by
+ * the offset it returns. Prefer Heap or FibonacciHeap for meld-heavy workloads.
+ *
+ */
+public class OffHeapHeap
+{
+	public static final long NIL = -1L; // the handle of "no node"
+
+	// record layout, in bytes
+	private static final int KEY = 0;
+	private static final int RANK = 4;
+	private static final int MARK = 8;
+	private static final int VALUE = 16;
+	private static final int PARENT = 24;
+	private static final int CHILD = 32;
+	private static final int NEXT = 40; // also chains the free records
+	private static final int PREV = 48;
+	private static final int RECORD_BYTES = 56;
+
+	private static final int SLAB_SHIFT = 16;
+	private static final int SLAB_RECORDS = 1 << SLAB_SHIFT;
+	private static final int SLAB_MASK = SLAB_RECORDS - 1;
+
+	public final boolean lazyMelds;
+	public final boolean lazyDecreaseKeys;
+	private ByteBuffer[] slabs;
+	private int numSlabs;
+	private long slots; // number of records ever handed out
+	private long freeList; // first recycled record
+	private long min;
+	private long first; // handle of the first tree's root
+	private int heapSize; // heap's size
+	private int numTrees;
+	private long linksCnt;
+	private long cutCnt;
+	private long totalHeapifyCosts;
+	private int numMarkedNodes;
+	private boolean rootsInRankOrder; // roots form a binomial forest of ascending ranks from first
+	private long[] rankBuckets; // consolidation workspace, indexed by rank
+	private int rankBucketsMaxSize; // the largest heap size rankBuckets can hold the ranks of
+
+	/* ###############################################################################
+	//                               main methods
+	############################################################################### */
+
+	/**
+	 *
+	 * Constructor to initialize an empty heap.
+	 *
+	 */
+	public OffHeapHeap(boolean lazyMelds, boolean lazyDecreaseKeys)
+	{
+		this.lazyMelds = lazyMelds;
+		this.lazyDecreaseKeys = lazyDecreaseKeys;
+		this.slabs = new ByteBuffer[4];
+		this.clear();
+	}
+
+	/**
+	 *
+	 * pre: key > 0
+	 *
+	 * Insert (key,value) into the heap and return the handle of the newly generated node.
+	 *
+	 */
+	public long insert(int key, long value)
+	{
+		long newNode = this.allocate(key, value);
+		heapSize++;
+		if (this.lazyMelds) {
+			// a lazy meld with a single node heap is just a splice into the roots
+			this.insertNodeToRoots(newNode);
+			this.updateMin(newNode);
+		}
+		else if (rootsInRankOrder) {
+			this.carryIntoRoots(newNode);
+		}
+		else {
+			// cuts broke the binomial forest, consolidate as a not lazy meld would
+			this.insertNodeToRoots(newNode);
+			this.consolidate();
+		}
+		return newNode;
+	}
+
+	/**
+	 *
+	 * Return the handle of the minimal node, NIL if empty.
+	 *
+	 */
+	public long findMin()
+	{
+		return min;
+	}
+
+	/**
+	 *
+	 * Return the key of the node with handle x.
+	 *
+	 */
+	public int key(long x)
+	{
+		return slab(x).getInt(offset(x) + KEY);
+	}
+
+	/**
+	 *
+	 * Return the value of the node with handle x.
+	 *
+	 */
+	public long value(long x)
+	{
+		return slab(x).getLong(offset(x) + VALUE);
+	}
+
+	/**
+	 *
+	 * Delete the minimal item.
+	 *
+	 */
+	public void deleteMin()
+	{
+		// Handle empty heap
+		if (heapSize == 0 || min == NIL) {
+			return;
+		}
+
+		long minNode = min;
+		// edge case of a single-node-heap
+		if (heapSize == 1)
+		{
+			// make this heap an empty heap with the previous counters
+			first = NIL;
+			min = NIL;
+			heapSize = 0;
+			numTrees = 0;
+			rootsInRankOrder = true;
+			this.free(minNode);
+			return;
+		}
+		long minChild = child(minNode);
+		// checks if the heap includes a single tree
+		if (numTrees == 1) {
+			first = minChild;
+			// for each child, remove the parent
+			this.removeParents(first);
+		}
+		else {
+			// Remove min from the root list
+			if (minNode == first)
+				first = next(first);
+			this.connectNext(prev(minNode), next(minNode));
+
+			// add the deleted node's children as trees to the heap
+			if (minChild != NIL) {
+				long second = next(first);
+				long lastChild = prev(minChild);
+				// for each child, remove the parent
+				this.removeParents(minChild);
+				// connect the children to the heap's roots
+				this.connectNext(first, minChild);
+				this.connectNext(lastChild, second);
+			}
+		}
+		heapSize -= 1;
+		numTrees += rank(minNode) - 1;
+		this.free(minNode);
+		this.consolidate();
+		this.updateMin();
+	}
+
+	/**
+	 *
+	 * pre: 0<=diff<=key(x)
+	 *
+	 * Decrease the key of x by diff and fix the heap.
+	 *
+	 */
+	public void decreaseKey(long x, int diff)
+	{
+		setKey(x, key(x) - diff);
+		if (lazyDecreaseKeys) {
+			this.decreaseLazy(x);
+		}
+		else {
+			this.decreaseNotLazy(x);
+		}
+		this.updateMin(x); // update the min node if necessary
+	}
+
+	/**
+	 *
+	 * Delete x from the heap.
+	 *
+	 */
+	public void delete(long x)
+	{
+		// if it's not the min, decrease its key to be the smallest
+		if (x != min) {
+			int diff = key(x) + 1;
+			this.decreaseKey(x, diff);
+		}
+		// activate the deletion
+		this.deleteMin();
+	}
+
+	/**
+	 *
+	 * Meld the heap with heap2.
+	 * heap2's records are copied into this heap's slabs, heap2 is left empty.
+	 * This costs O(heap2.size()) and moves heap2's records to new slots.
+	 * Returns the offset to add to heap2's handles to get their handles in this heap.
+	 * pre: heap2.lazyMelds = this.lazyMelds AND heap2.lazyDecreaseKeys = this.lazyDecreaseKeys
+	 *
+	 */
+	public long meld(OffHeapHeap heap2)
+	{
+		// the other heap is empty so no changes required
+		if (heap2 == null || heap2 == this || heap2.size() == 0)
+			return 0;
+
+		long offset = slots;
+		this.ensureCapacity(slots + heap2.slots);
+		for (long i = 0; i < heap2.slots; i++) {
+			long x = i + offset;
+			setKey(x, heap2.key(i));
+			setRank(x, heap2.rank(i));
+			setMark(x, heap2.mark(i));
+			setValue(x, heap2.value(i));
+			setParent(x, shift(heap2.parent(i), offset));
+			setChild(x, shift(heap2.child(i), offset));
+			setNext(x, shift(heap2.next(i), offset));
+			setPrev(x, shift(heap2.prev(i), offset));
+		}
+		slots += heap2.slots;
+		// recycle heap2's free records in this heap
+		for (long i = heap2.freeList; i != NIL; i = heap2.next(i))
+			this.free(i + offset);
+
+		long first2 = heap2.first + offset;
+		long min2 = heap2.min + offset;
+		if (heapSize == 0) {
+			first = first2;
+			min = min2;
+			rootsInRankOrder = heap2.rootsInRankOrder;
+		}
+		else {
+			//connecting 'edges'
+			long lastNodeHeap2 = prev(first2);
+			this.connectNext(prev(first), first2);
+			this.connectNext(lastNodeHeap2, first);
+			this.updateMin(min2);
+			rootsInRankOrder = false;
+		}
+
+		// update attributes
+		heapSize += heap2.heapSize;
+		numTrees += heap2.numTrees;
+		linksCnt += heap2.linksCnt;
+		cutCnt += heap2.cutCnt;
+		totalHeapifyCosts += heap2.totalHeapifyCosts;
+		numMarkedNodes += heap2.numMarkedNodes;
+		heap2.clear();
+
+		if (!this.lazyMelds)
+			this.consolidate();
+		return offset;
+	}
+
+	/**
+	 *
+	 * Return a view of this heap as an AddressablePriorityQueue with SlotHandles.
+	 * Its handles hold the record handles of this heap and stay valid across the
+	 * view's melds. The view keeps one on-heap SlotHandle per item.
+	 *
+	 */
+	public AddressablePriorityQueue<SlotHandle> asQueue()
+	{
+		return new QueueView();
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the heap
+	 *
+	 */
+	public int size()
+	{
+		return heapSize;
+	}
+
+	/**
+	 *
+	 * Return the number of trees in the heap.
+	 *
+	 */
+	public int numTrees()
+	{
+		return numTrees;
+	}
+
+	/**
+	 *
+	 * Return the number of marked nodes in the heap.
+	 *
+	 */
+	public int numMarkedNodes()
+	{
+		return numMarkedNodes;
+	}
+
+	/**
+	 *
+	 * Return the total number of links.
+	 *
+	 */
+	public long totalLinks()
+	{
+		return linksCnt;
+	}
+
+	/**
+	 *
+	 * Return the total number of cuts.
+	 *
+	 */
+	public long totalCuts()
+	{
+		return cutCnt;
+	}
+
+	/**
+	 *
+	 * Return the total heapify costs.
+	 *
+	 */
+	public long totalHeapifyCosts()
+	{
+		return totalHeapifyCosts;
+	}
+
+	/**
+	 *
+	 * Return the number of bytes of native memory held by the heap.
+	 *
+	 */
+	public long offHeapBytes()
+	{
+		return (long) numSlabs * SLAB_RECORDS * RECORD_BYTES;
+	}
+
+
+	/* ###############################################################################
+	//                               HELP METHODS
+	############################################################################### */
+
+	/**
+	 * make this heap empty and drop its slabs
+	 */
+	private void clear()
+	{
+		Arrays.fill(slabs, null);
+		numSlabs = 0;
+		slots = 0;
+		freeList = NIL;
+		min = NIL;
+		first = NIL;
+		heapSize = 0;
+		numTrees = 0;
+		linksCnt = 0;
+		cutCnt = 0;
+		totalHeapifyCosts = 0;
+		numMarkedNodes = 0;
+		rootsInRankOrder = true;
+	}
+
+	/**
+	 * returns a record for a new single node, a recycled one if there is any
+	 */
+	private long allocate(int k, long v)
+	{
+		long x;
+		if (freeList != NIL) {
+			x = freeList;
+			freeList = next(x);
+		}
+		else {
+			this.ensureCapacity(slots + 1);
+			x = slots++;
+		}
+		setKey(x, k);
+		setRank(x, 0);
+		setMark(x, false);
+		setValue(x, v);
+		setParent(x, NIL);
+		setChild(x, NIL);
+		setNext(x, x);
+		setPrev(x, x);
+		return x;
+	}
+
+	/**
+	 * chain record x to the free records
+	 */
+	private void free(long x)
+	{
+		setNext(x, freeList);
+		freeList = x;
+	}
+
+	/**
+	 * add slabs until there is room for capacity records
+	 */
+	private void ensureCapacity(long capacity)
+	{
+		while ((long) numSlabs * SLAB_RECORDS < capacity) {
+			if (numSlabs == slabs.length)
+				slabs = Arrays.copyOf(slabs, numSlabs * 2);
+			slabs[numSlabs++] = ByteBuffer.allocateDirect(SLAB_RECORDS * RECORD_BYTES)
+				.order(ByteOrder.nativeOrder());
+		}
+	}
+
+	/**
+	 * returns handle x moved by offset, NIL stays NIL
+	 */
+	private static long shift(long x, long offset)
+	{
+		return x == NIL ? NIL : x + offset;
+	}
+
+	private ByteBuffer slab(long x)
+	{
+		return slabs[(int) (x >>> SLAB_SHIFT)];
+	}
+
+	private static int offset(long x)
+	{
+		return ((int) x & SLAB_MASK) * RECORD_BYTES;
+	}
+
+	private void setKey(long x, int k) { slab(x).putInt(offset(x) + KEY, k); }
+	private int rank(long x) { return slab(x).getInt(offset(x) + RANK); }
+	private void setRank(long x, int r) { slab(x).putInt(offset(x) + RANK, r); }
+	private boolean mark(long x) { return slab(x).getInt(offset(x) + MARK) != 0; }
+	private void setMark(long x, boolean m) { slab(x).putInt(offset(x) + MARK, m ? 1 : 0); }
+	private void setValue(long x, long v) { slab(x).putLong(offset(x) + VALUE, v); }
+	private long parent(long x) { return slab(x).getLong(offset(x) + PARENT); }
+	private void setParent(long x, long p) { slab(x).putLong(offset(x) + PARENT, p); }
+	private long child(long x) { return slab(x).getLong(offset(x) + CHILD); }
+	private void setChild(long x, long c) { slab(x).putLong(offset(x) + CHILD, c); }
+	private long next(long x) { return slab(x).getLong(offset(x) + NEXT); }
+	private void setNext(long x, long n) { slab(x).putLong(offset(x) + NEXT, n); }
+	private long prev(long x) { return slab(x).getLong(offset(x) + PREV); }
+	private void setPrev(long x, long p) { slab(x).putLong(offset(x) + PREV, p); }
+
+	/**
+	 * connects y to be the next of x
+	 */
+	private void connectNext(long x, long y)
+	{
+		setNext(x, y);
+		setPrev(y, x);
+	}
+
+	/**
+	 * inserts x to be before y by adjusting
+	 * the pointers to be in the order of: prev, x, y
+	 */
+	private void insertBefore(long x, long y)
+	{
+		long preNode = prev(y);
+		setNext(x, y);
+		setPrev(x, preNode);
+		setPrev(y, x);
+		setNext(preNode, x);
+	}
+
+	/**
+	 * updates the min field out of all roots
+	 */
+	private void updateMin()
+	{
+		if (heapSize == 0 || first == NIL) {
+			min = NIL;
+			return;
+		}
+		min = first;
+		for (long curr = next(first); curr != first; curr = next(curr))
+			this.updateMin(curr);
+	}
+
+	/**
+	 * updates the min field if node is smaller
+	 */
+	private void updateMin(long x)
+	{
+		if (min == NIL || key(x) < key(min))
+			min = x;
+	}
+
+	/**
+	 * Decrease the key of x by diff and fix the heap without updating the min node
+	 */
+	private void decreaseLazy(long x)
+	{
+		long prnt = parent(x);
+		if (prnt != NIL && key(x) < key(prnt)) // the rule of heap is violated
+			this.cascadingCut(x); // initiate the cascading cut process
+	}
+
+	/**
+	 * move x up the tree without updating the min node.
+	 * the records are relinked rather than trading keys, so handles stay valid.
+	 * the children's parents are set once at the end, see Heap.HeapifyUp
+	 */
+	private void decreaseNotLazy(long x)
+	{
+		long lowestAncestor = parent(x);
+		int swaps = 0;
+		while (parent(x) != NIL && key(x) < key(parent(x))) {
+			this.swapWithParent(x);
+			swaps++;
+		}
+		if (swaps == 0)
+			return;
+		totalHeapifyCosts += swaps;
+		// the ancestors moved one place down, each still pointing to the one above it
+		long ancestor = lowestAncestor;
+		while (ancestor != parent(x)) {
+			long above = parent(ancestor);
+			this.setParents(child(ancestor), ancestor);
+			ancestor = above;
+		}
+		this.setParents(child(x), x);
+	}
+
+	/**
+	 * pre: x is not a root
+	 * exchange the places of x and its parent in the tree,
+	 * setting only x's own parent
+	 */
+	private void swapWithParent(long x)
+	{
+		long prnt = parent(x);
+		long grandParent = parent(prnt);
+		long xChild = child(x);
+		long xPrev = prev(x);
+		long xNext = next(x);
+		long prntPrev = prev(prnt);
+		long prntNext = next(prnt);
+
+		// x replaces prnt in prnt's chain
+		if (prntNext == prnt) {
+			setNext(x, x);
+			setPrev(x, x);
+		}
+		else {
+			this.connectNext(prntPrev, x);
+			this.connectNext(x, prntNext);
+		}
+		setParent(x, grandParent);
+		if (grandParent != NIL) {
+			if (child(grandParent) == prnt)
+				setChild(grandParent, x);
+		}
+		else if (first == prnt)
+			first = x;
+		if (min == prnt)
+			min = x;
+
+		// prnt replaces x among prnt's children, which become x's children
+		if (xNext == x) {
+			setNext(prnt, prnt);
+			setPrev(prnt, prnt);
+		}
+		else {
+			this.connectNext(xPrev, prnt);
+			this.connectNext(prnt, xNext);
+		}
+		long prntChild = child(prnt);
+		setChild(x, prntChild == x ? prnt : prntChild);
+
+		// x's children become prnt's children
+		setChild(prnt, xChild);
+
+		// the rank and the mark belong to the place in the tree
+		int tmpRank = rank(x);
+		setRank(x, rank(prnt));
+		setRank(prnt, tmpRank);
+		boolean tmpMark = mark(x);
+		setMark(x, mark(prnt));
+		setMark(prnt, tmpMark);
+	}
+
+	/**
+	 * cut x from its parent and continue upwards while the parents are marked
+	 */
+	private void cascadingCut(long x)
+	{
+		long prnt = parent(x);
+		this.cut(x);
+		// climb while prnt is a marked non-root
+		while (parent(prnt) != NIL && mark(prnt)) {
+			long grandParent = parent(prnt);
+			this.cut(prnt);
+			prnt = grandParent;
+		}
+		// mark the first unmarked non-root ancestor
+		if (parent(prnt) != NIL) {
+			setMark(prnt, true);
+			numMarkedNodes++;
+		}
+	}
+
+	/**
+	 * pre: x is in heap
+	 * cut x from its parent and add it to the heap's roots
+	 */
+	private void cut(long x)
+	{
+		long prnt = parent(x);
+		// check if x is an only child
+		if (next(x) == x)
+			setChild(prnt, NIL);
+		else {
+			if (child(prnt) == x) // if x is the first child of prnt
+				setChild(prnt, next(x));
+			this.connectNext(prev(x), next(x)); // omit x from its original chain
+		}
+		// insert x to the heap's roots
+		this.insertNodeToRoots(x);
+		// update parameters
+		setRank(prnt, rank(prnt) - 1);
+		cutCnt++;
+	}
+
+	/**
+	 * relocate the input node to the heap's roots
+	 */
+	private void insertNodeToRoots(long x)
+	{
+		if (first == NIL) {
+			// First node in the heap
+			setNext(x, x);
+			setPrev(x, x);
+		}
+		else
+			this.insertBefore(x, first);
+		first = x;
+		setParent(x, NIL);
+		numTrees++; // update counter
+		this.unmark(x);
+		rootsInRankOrder = false;
+	}
+
+	/**
+	 * pre: the roots form a binomial forest of ascending ranks starting at first
+	 * add a new rank 0 tree to the roots like incrementing a binary counter
+	 */
+	private void carryIntoRoots(long x)
+	{
+		long carry = x;
+		while (first != NIL && rank(first) == rank(carry)) {
+			long root = first;
+			// omit root from the roots' chain
+			if (next(root) == root)
+				first = NIL;
+			else {
+				first = next(root);
+				this.connectNext(prev(root), next(root));
+			}
+			setNext(root, root);
+			setPrev(root, root);
+			numTrees--;
+			carry = this.link(carry, root);
+		}
+		// the carried tree has the smallest rank so it becomes the first root
+		if (first == NIL) {
+			setNext(carry, carry);
+			setPrev(carry, carry);
+		}
+		else
+			this.insertBefore(carry, first);
+		first = carry;
+		numTrees++;
+		// the min might have been linked below the carried root (equal keys)
+		if (min == NIL || parent(min) != NIL || key(carry) < key(min))
+			min = carry;
+	}
+
+	/**
+	 * For each node in the chain of the input node, remove its parent
+	 */
+	private void removeParents(long x)
+	{
+		if (x == NIL) return;
+		long curr = x;
+		do {
+			setParent(curr, NIL);
+			this.unmark(curr);
+			curr = next(curr);
+		} while (curr != x);
+	}
+
+	/**
+	 * clear the mark of x, a root to be, keeping numMarkedNodes exact
+	 */
+	private void unmark(long x)
+	{
+		if (mark(x)) {
+			setMark(x, false);
+			numMarkedNodes--;
+		}
+	}
+
+	/**
+	 * For each node in the chain of the input node, set its parent to prnt
+	 */
+	private void setParents(long x, long prnt)
+	{
+		if (x == NIL) return;
+		long curr = x;
+		do {
+			setParent(curr, prnt);
+			curr = next(curr);
+		} while (curr != x);
+	}
+
+	/**
+	 * consolidate the heap's trees as a valid binomial heap
+	 */
+	private void consolidate()
+	{
+		// handle empty heaps
+		if (heapSize == 0 || numTrees == 0 || first == NIL) {
+			return;
+		}
+
+		// the "buckets" in which we keep the trees of same ranks
+		long[] buckets = this.consolidationBuckets();
+		int topRank = 0;
+
+		// iterate through the heap
+		long curr = first;
+		for (int i = 0; i < numTrees; i++)
+		{
+			// separate curr from others, keep a pointer for the next tree
+			long nxt = next(curr);
+			setNext(curr, curr);
+			setPrev(curr, curr);
+
+			int r = rank(curr);
+			long subTree = buckets[r];
+			while (subTree != NIL)
+			{
+				buckets[r] = NIL; // remove the inside tree from its bucket
+				curr = this.link(curr, subTree); // assign curr to be the root of the linked tree
+				r = rank(curr);
+				subTree = buckets[r]; // assign to the next bucket
+			}
+			buckets[r] = curr; // insert the new tree to the relevant bucket
+			if (r > topRank)
+				topRank = r;
+			curr = nxt;
+		}
+		this.fromBucketsToHeap(buckets, topRank); // update the heap to match the trees in the buckets
+	}
+
+	/**
+	 * returns the consolidation workspace, grown only when the heap's size
+	 * exceeds the largest size it was allocated for
+	 */
+	private long[] consolidationBuckets()
+	{
+		if (rankBuckets == null || heapSize > rankBucketsMaxSize) {
+			int bitLength = 32 - Integer.numberOfLeadingZeros(heapSize);
+			rankBuckets = new long[bitLength + (bitLength >> 1) + 2];
+			Arrays.fill(rankBuckets, NIL);
+			rankBucketsMaxSize = (1 << bitLength) - 1;
+		}
+		return rankBuckets;
+	}
+
+	/**
+	 * pre: x, y roots in the heap
+	 * link the two nodes according to heaps' rule
+	 * returns the root of the linked tree
+	 */
+	private long link(long x, long y)
+	{
+		// make x node the smaller one
+		if (key(y) < key(x)) {
+			long temp = x;
+			x = y;
+			y = temp;
+		}
+
+		// consider whether x node has no children
+		long xChild = child(x);
+		if (xChild == NIL)
+			setNext(y, y);
+		else {
+			this.connectNext(y, next(xChild));
+			this.connectNext(xChild, y);
+		}
+		// connect parent - child
+		setChild(x, y);
+		setParent(y, x);
+		// update rank
+		setRank(x, rank(x) + 1);
+		// increase the heap's links count by 1
+		linksCnt++;
+		return x;
+	}
+
+	/**
+	 * creates a valid binomial heap out of buckets' nodes
+	 * and clears the buckets up to topRank for the next consolidation
+	 */
+	private void fromBucketsToHeap(long[] buckets, int topRank)
+	{
+		min = NIL;
+		first = NIL;
+		numTrees = 0;
+		rootsInRankOrder = true;
+		// go over the nodes in buckets from the biggest to smallest
+		for (int i = topRank; i >= 0; i--) {
+			long x = buckets[i];
+			if (x != NIL)
+			{
+				buckets[i] = NIL;
+				// checks if we didn't encounter real nodes yet
+				if (first == NIL) {
+					setNext(x, x);
+					setPrev(x, x);
+				}
+				else
+					this.insertBefore(x, first);
+				first = x;
+				this.updateMin(x);
+				// increase the trees counter by one for each inserted tree
+				numTrees += 1;
+			}
+		}
+	}
+
+
+	/* #################################################################################
+	//                               QueueView class
+	#####################################################################################*/
+	/**
+	 * This heap as an AddressablePriorityQueue with SlotHandles.
+	 * The infos are dropped and the values are 0.
+	 * meld copies the other heap's records, O(size of the other heap), and moves
+	 * their handles to the new records.
+	 */
+	private class QueueView implements AddressablePriorityQueue<SlotHandle>
+	{
+		private final SlotHandle.Table handles = new SlotHandle.Table();
+
+		OffHeapHeap heap()
+		{
+			return OffHeapHeap.this;
+		}
+
+		public SlotHandle insert(int key, String info)
+		{
+			return handles.get(OffHeapHeap.this.insert(key, 0L));
+		}
+
+		public SlotHandle findMin()
+		{
+			long x = OffHeapHeap.this.findMin();
+			return x == NIL ? null : handles.get(x);
+		}
+
+		public void deleteMin()
+		{
+			long x = OffHeapHeap.this.findMin();
+			if (x == NIL)
+				return;
+			handles.remove(x);
+			OffHeapHeap.this.deleteMin();
+		}
+
+		public void decreaseKey(SlotHandle x, int diff)
+		{
+			OffHeapHeap.this.decreaseKey(x.slot, diff);
+		}
+
+		public void delete(SlotHandle x)
+		{
+			long slot = x.slot;
+			handles.remove(slot);
+			OffHeapHeap.this.delete(slot);
+		}
+
+		public void meld(AddressablePriorityQueue<SlotHandle> other)
+		{
+			QueueView view = (QueueView) other;
+			if (view == this)
+				return;
+			long offset = OffHeapHeap.this.meld(view.heap());
+			handles.moveFrom(view.handles, offset);
+		}
+
+		public int key(SlotHandle x)
+		{
+			return OffHeapHeap.this.key(x.slot);
+		}
+
+		public int size()
+		{
+			return OffHeapHeap.this.size();
+		}
+
+		public int numTrees()
+		{
+			return OffHeapHeap.this.numTrees();
+		}
+
+		public long totalLinks()
+		{
+			return OffHeapHeap.this.totalLinks();
+		}
+
+		public long totalCuts()
+		{
+			return OffHeapHeap.this.totalCuts();
+		}
+
+		public long totalHeapifyCosts()
+		{
+			return OffHeapHeap.this.totalHeapifyCosts();
+		}
+	}
+}
@@ -0,0 +1,292 @@
+import java.util.Arrays;
+
+/**
+ * PairingHeap
+ *
+ * An implementation of pairing heap over positive integers.
+ * The heap is a single tree whose children are kept in sibling lists:
+ * a node points to its leftmost child, to its next sibling and back to its
+ * previous sibling, or to its parent when it is the leftmost child.
+ * deleteMin combines the root's children with the two pass pairing.
+ *
+ */
+public class PairingHeap implements AddressablePriorityQueue<PairingHeap.HeapNode>
+{
+	private HeapNode root;
+	private int heapSize;
+	private long linksCnt;
+	private long cutCnt;
+	private HeapNode[] pairs = new HeapNode[16]; // two pass workspace
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 * empty constructor
+	 */
+	public PairingHeap(){
+		root = null;
+		heapSize = 0;
+		linksCnt = 0;
+		cutCnt = 0;
+	}
+
+	/**
+	 * pre: key > 0
+	 *
+	 * Insert (key,info) into the heap and return the newly generated HeapNode.
+	 *
+	 */
+	public HeapNode insert(int key, String info)
+	{
+		HeapNode newNode = new HeapNode(key, info);
+		root = (root == null) ? newNode : this.link(root, newNode);
+		heapSize++;
+		return newNode;
+	}
+
+	/**
+	 *
+	 * Return the minimal HeapNode, null if empty.
+	 *
+	 */
+	public HeapNode findMin()
+	{
+		return root;
+	}
+
+	/**
+	 *
+	 * Delete the minimal item
+	 *
+	 */
+	public void deleteMin()
+	{
+		if (root == null)
+			return;
+		root = this.combineChildren(root);
+		heapSize--;
+	}
+
+	/**
+	 *
+	 * pre: 0<=diff<=x.key
+	 *
+	 * Decrease the key of x by diff and fix the heap.
+	 *
+	 */
+	public void decreaseKey(HeapNode x, int diff)
+	{
+		x.key -= diff;
+		if (x == root)
+			return;
+		this.cut(x);
+		root = this.link(root, x);
+	}
+
+	/**
+	 *
+	 * Delete x from the heap
+	 *
+	 */
+	public void delete(HeapNode x)
+	{
+		if (x == root) {
+			this.deleteMin();
+			return;
+		}
+		this.cut(x);
+		HeapNode subtree = this.combineChildren(x);
+		if (subtree != null)
+			root = this.link(root, subtree);
+		heapSize--;
+	}
+
+	/**
+	 *
+	 * pre: heap2 is a PairingHeap
+	 *
+	 * Meld the heap with heap2 by linking their roots, heap2 is left empty.
+	 *
+	 */
+	public void meld(AddressablePriorityQueue<HeapNode> heap2)
+	{
+		PairingHeap other = (PairingHeap) heap2;
+		if (other == null || other == this || other.root == null)
+			return;
+		root = (root == null) ? other.root : this.link(root, other.root);
+		heapSize += other.heapSize;
+		linksCnt += other.linksCnt;
+		cutCnt += other.cutCnt;
+		other.root = null;
+		other.heapSize = 0;
+	}
+
+	/**
+	 *
+	 * Return the key of x.
+	 *
+	 */
+	public int key(HeapNode x)
+	{
+		return x.key;
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the heap
+	 *
+	 */
+	public int size()
+	{
+		return heapSize;
+	}
+
+	/**
+	 *
+	 * Return the number of trees in the heap, at most 1.
+	 *
+	 */
+	public int numTrees()
+	{
+		return root == null ? 0 : 1;
+	}
+
+	/**
+	 *
+	 * Return the total number of links.
+	 *
+	 */
+	public long totalLinks()
+	{
+		return linksCnt;
+	}
+
+	/**
+	 *
+	 * Return the total number of cuts.
+	 *
+	 */
+	public long totalCuts()
+	{
+		return cutCnt;
+	}
+
+	/**
+	 *
+	 * Return the total heapify costs, always 0.
+	 *
+	 */
+	public long totalHeapifyCosts()
+	{
+		return 0;
+	}
+
+
+	/* #################################################################################
+	//                               help methods
+	#####################################################################################*/
+
+	/**
+	 * pre: x and y are roots without siblings
+	 * make the root with the bigger key the leftmost child of the other,
+	 * and return the new root
+	 */
+	private HeapNode link(HeapNode x, HeapNode y)
+	{
+		if (y.key < x.key) {
+			HeapNode temp = x;
+			x = y;
+			y = temp;
+		}
+		y.next = x.child;
+		if (x.child != null)
+			x.child.prev = y;
+		y.prev = x;
+		x.child = y;
+		linksCnt++;
+		return x;
+	}
+
+	/**
+	 * pre: x is not the root
+	 * detach the subtree of x from its parent and siblings
+	 */
+	private void cut(HeapNode x)
+	{
+		if (x.prev.child == x) // x is the leftmost child
+			x.prev.child = x.next;
+		else
+			x.prev.next = x.next;
+		if (x.next != null)
+			x.next.prev = x.prev;
+		x.next = null;
+		x.prev = null;
+		cutCnt++;
+	}
+
+	/**
+	 * combine the children of x into one tree with the two pass pairing:
+	 * link them in pairs from left to right, then link the pairs from
+	 * right to left. return the tree's root, null if x has no children
+	 */
+	private HeapNode combineChildren(HeapNode x)
+	{
+		HeapNode child = x.child;
+		x.child = null;
+		int numPairs = 0;
+		while (child != null) {
+			HeapNode a = child;
+			HeapNode b = a.next;
+			child = (b == null) ? null : b.next;
+			a.next = null;
+			a.prev = null;
+			if (b != null) {
+				b.next = null;
+				b.prev = null;
+				a = this.link(a, b);
+			}
+			if (numPairs == pairs.length)
+				pairs = Arrays.copyOf(pairs, 2 * numPairs);
+			pairs[numPairs++] = a;
+		}
+		if (numPairs == 0)
+			return null;
+		HeapNode result = pairs[--numPairs];
+		pairs[numPairs] = null;
+		while (numPairs > 0) {
+			result = this.link(pairs[--numPairs], result);
+			pairs[numPairs] = null;
+		}
+		return result;
+	}
+
+
+	/* #################################################################################
+	//                               HeapNode class
+	#####################################################################################*/
+	/**
+	 * Class implementing a node in a Pairing Heap.
+	 *
+	 */
+	public static class HeapNode{
+		public int key;
+		public String info;
+		public HeapNode child; // leftmost child
+		public HeapNode next; // next sibling
+		public HeapNode prev; // previous sibling, or parent for the leftmost child
+
+		/**
+		 * constructor with key and info
+		 */
+		public HeapNode(int key, String info)
+		{
+			this.key = key;
+			this.info = info;
+			this.child = null;
+			this.next = null;
+			this.prev = null;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * PriorityQueues
+ *
+ * Creates AddressablePriorityQueues by engine name, so that the engine can be
+ * chosen per deployment, e.g. by the heap.engine system property, without
+ * changing code.
+ *
+ */
+public class PriorityQueues
+{
+	public static final String ENGINE_PROPERTY = "heap.engine";
+	public static final String DEFAULT_ENGINE = "fibonacci";
+	public static final int TIMER_WHEEL_HORIZON = 1 << 10;
+
+	// the engine names, each with a description.
+	// int-fibonacci, off-heap and radix meld by copying, so it doesn't suit meld-heavy workloads
+	private static final String[][] ENGINES = {
+		{ "binomial", "Binomial Heap (lazy=false, decrease=false)" },
+		{ "lazy-binomial", "Lazy Binomial Heap (lazy=true, decrease=false)" },
+		{ "fibonacci", "Fibonacci Heap (lazy=true, decrease=true)" },
+		{ "binomial-cutoffs", "Binomial with Cutoffs (lazy=false, decrease=true)" },
+		{ "fibonacci-heap", "FibonacciHeap" },
+		{ "pairing", "Pairing Heap" },
+		{ "rank-pairing", "Rank-Pairing Heap" },
+		{ "int-fibonacci", "IntFibonacciHeap (int handles, O(n) copying meld)" },
+		{ "off-heap", "Fibonacci OffHeapHeap (long handles, O(n) copying meld)" },
+		{ "radix", "Radix Heap (monotone keys only, O(n) copying meld)" },
+		{ "timer-wheel", "Timer Wheel over a Fibonacci Heap (horizon " + TIMER_WHEEL_HORIZON + ")" }
+	};
+
+	private PriorityQueues()
+	{
+	}
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 *
+	 * Return a new empty queue of the named engine.
+	 * Throws IllegalArgumentException for an unknown name.
+	 *
+	 */
+	public static AddressablePriorityQueue<?> create(String name)
+	{
+		switch (name) {
+			case "binomial":
+				return new Heap(false, false);
+			case "lazy-binomial":
+				return new Heap(true, false);
+			case "fibonacci":
+				return new Heap(true, true);
+			case "binomial-cutoffs":
+				return new Heap(false, true);
+			case "fibonacci-heap":
+				return new FibonacciHeap();
+			case "pairing":
+				return new PairingHeap();
+			case "rank-pairing":
+				return new RankPairingHeap();
+			case "int-fibonacci":
+				return new IntFibonacciHeap().asQueue();
+			case "off-heap":
+				return new OffHeapHeap(true, true).asQueue();
+			case "radix":
+				return new RadixHeap().asQueue();
+			case "timer-wheel":
+				return new TimerWheelHeap(TIMER_WHEEL_HORIZON, true, true);
+			default:
+				throw new IllegalArgumentException("unknown heap engine " + name + ", expected one of " + String.join(", ", names()));
+		}
+	}
+
+	/**
+	 *
+	 * Return a new empty queue of the engine named by the heap.engine
+	 * system property, DEFAULT_ENGINE when it is not set.
+	 *
+	 */
+	public static AddressablePriorityQueue<?> create()
+	{
+		return create(System.getProperty(ENGINE_PROPERTY, DEFAULT_ENGINE));
+	}
+
+	/**
+	 *
+	 * Return the names of all the engines.
+	 *
+	 */
+	public static String[] names()
+	{
+		String[] names = new String[ENGINES.length];
+		for (int i = 0; i < ENGINES.length; i++)
+			names[i] = ENGINES[i][0];
+		return names;
+	}
+
+	/**
+	 *
+	 * Return the description of the named engine, the name if it is unknown.
+	 *
+	 */
+	public static String describe(String name)
+	{
+		for (String[] engine : ENGINES) {
+			if (engine[0].equals(name))
+				return engine[1];
+		}
+		return name;
+	}
+}
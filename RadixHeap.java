@@ -0,0 +1,478 @@
+import java.util.Arrays;
+
+/**
+ * RadixHeap
+ *
+ * A monotone priority queue over non negative integers: the keys inserted or
+ * decreased to are never smaller than the last deleted minimum, as in Dijkstra's
+ * algorithm. The nodes are slots of int arrays as in IntFibonacciHeap.
+ * Bucket 0 holds the keys equal to the last deleted minimum and bucket i > 0 the
+ * keys whose highest bit that differs from it is bit i-1. deleteMin empties
+ * the smallest non empty bucket into lower buckets around its minimum, so a node
+ * moves at most 32 times: O(log C) amortized per operation for keys up to C.
+ *
+ */
+public class RadixHeap
+{
+	public static final int NIL = -1; // the handle of "no node"
+	private static final int NUM_BUCKETS = 33;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// the nodes' fields, indexed by handle
+	private int[] key;
+	private int[] next; // also chains the free slots
+	private int[] prev;
+	private int[] bucket;
+
+	private final int[] heads = new int[NUM_BUCKETS]; // first node of each bucket
+	private int slots; // number of slots ever handed out
+	private int freeList; // first recycled slot
+	private int last; // the last deleted minimum
+	private int min; // the minimal node, NIL if unknown
+	private int heapSize;
+	private long movesCnt; // nodes moved to a lower bucket
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 * empty constructor
+	 */
+	public RadixHeap(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * constructor of an empty heap with room for capacity nodes
+	 */
+	public RadixHeap(int capacity){
+		capacity = Math.max(capacity, 1);
+		key = new int[capacity];
+		next = new int[capacity];
+		prev = new int[capacity];
+		bucket = new int[capacity];
+		Arrays.fill(heads, NIL);
+		freeList = NIL;
+		min = NIL;
+	}
+
+	/**
+	 * pre: key >= lastDeletedKey()
+	 *
+	 * Insert key into the heap and return the handle of the newly generated node.
+	 *
+	 */
+	public int insert(int k)
+	{
+		int x = this.allocate(k);
+		this.addToBucket(x, this.bucketOf(k));
+		heapSize++;
+		if (heapSize == 1 || (min != NIL && k < key[min]))
+			min = x;
+		return x;
+	}
+
+	/**
+	 *
+	 * Return the handle of the minimal node, NIL if empty.
+	 *
+	 */
+	public int findMin()
+	{
+		if (heapSize == 0)
+			return NIL;
+		if (heads[0] != NIL)
+			return heads[0];
+		if (min == NIL) {
+			// the minimum is in the smallest non empty bucket
+			int i = 1;
+			while (heads[i] == NIL)
+				i++;
+			min = heads[i];
+			for (int x = next[min]; x != heads[i]; x = next[x]) {
+				if (key[x] < key[min])
+					min = x;
+			}
+		}
+		return min;
+	}
+
+	/**
+	 *
+	 * Return the key of the node with handle x.
+	 *
+	 */
+	public int key(int x){
+		return key[x];
+	}
+
+	/**
+	 *
+	 * Delete the minimal item
+	 *
+	 */
+	public void deleteMin()
+	{
+		int x = this.findMin();
+		if (x == NIL)
+			return;
+		int i = bucket[x];
+		if (i != 0) {
+			// move the bucket's nodes down around the new last
+			last = key[x];
+			int node = heads[i];
+			heads[i] = NIL;
+			while (node != NIL) {
+				int nextNode = (next[node] == node) ? NIL : next[node];
+				if (nextNode != NIL)
+					this.connectNext(prev[node], nextNode);
+				this.addToBucket(node, this.bucketOf(key[node]));
+				movesCnt++;
+				node = nextNode;
+			}
+		}
+		this.removeFromBucket(x);
+		this.free(x);
+		heapSize--;
+		min = NIL;
+	}
+
+	/**
+	 *
+	 * pre: 0<=diff<=key(x)-lastDeletedKey()
+	 *
+	 * Decrease the key of x by diff.
+	 *
+	 */
+	public void decreaseKey(int x, int diff)
+	{
+		key[x] -= diff;
+		int i = this.bucketOf(key[x]);
+		if (i != bucket[x]) {
+			this.removeFromBucket(x);
+			this.addToBucket(x, i);
+		}
+		if (min != NIL && key[x] < key[min])
+			min = x;
+	}
+
+	/**
+	 *
+	 * Delete x from the heap
+	 *
+	 */
+	public void delete(int x)
+	{
+		this.removeFromBucket(x);
+		this.free(x);
+		heapSize--;
+		if (x == min)
+			min = NIL;
+	}
+
+	/**
+	 * pre: heap2's keys >= lastDeletedKey()
+	 *
+	 * Meld the heap with heap2.
+	 * heap2's nodes are copied into this heap's arrays and put in this heap's
+	 * buckets, heap2 is left empty.
+	 * Returns the offset to add to heap2's handles to get their handles in this heap.
+	 * Throws IllegalArgumentException when a key of heap2 is below lastDeletedKey().
+	 *
+	 */
+	public int meld(RadixHeap heap2)
+	{
+		// the other heap is empty so no changes required
+		if (heap2 == null || heap2 == this || heap2.size() == 0)
+			return 0;
+		int min2 = heap2.findMin();
+		if (heap2.key[min2] < last)
+			throw new IllegalArgumentException("key " + heap2.key[min2] + " is below the last deleted minimum " + last);
+
+		int offset = slots;
+		this.ensureCapacity(slots + heap2.slots);
+		System.arraycopy(heap2.key, 0, key, offset, heap2.slots);
+		slots += heap2.slots;
+		for (int head : heap2.heads) {
+			if (head == NIL)
+				continue;
+			int node = head;
+			do {
+				int nextNode = heap2.next[node];
+				int x = node + offset;
+				this.addToBucket(x, this.bucketOf(key[x]));
+				node = nextNode;
+			} while (node != head);
+		}
+		// recycle heap2's free slots in this heap
+		for (int i = heap2.freeList; i != NIL; i = heap2.next[i])
+			this.free(i + offset);
+
+		if (heapSize == 0 || (min != NIL && key[min2 + offset] < key[min]))
+			min = min2 + offset;
+		heapSize += heap2.heapSize;
+		movesCnt += heap2.movesCnt;
+		heap2.clear();
+		return offset;
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the heap
+	 *
+	 */
+	public int size()
+	{
+		return heapSize;
+	}
+
+	/**
+	 *
+	 * Return a view of this heap as an AddressablePriorityQueue with SlotHandles.
+	 * Its handles hold this heap's slots and stay valid across the view's melds,
+	 * and its keys must stay monotone.
+	 *
+	 */
+	public AddressablePriorityQueue<SlotHandle> asQueue()
+	{
+		return new QueueView();
+	}
+
+	/**
+	 *
+	 * Return the number of non empty buckets
+	 *
+	 */
+	public int numBuckets()
+	{
+		int count = 0;
+		for (int head : heads) {
+			if (head != NIL)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 *
+	 * Return the last deleted minimum, the lower bound of new keys
+	 *
+	 */
+	public int lastDeletedKey()
+	{
+		return last;
+	}
+
+	/**
+	 *
+	 * Return the number of times a node moved to a lower bucket
+	 *
+	 */
+	public long totalMoves()
+	{
+		return movesCnt;
+	}
+
+
+	/* #################################################################################
+	//                               help methods
+	#####################################################################################*/
+
+	/**
+	 * the bucket of key k: 0 for the last deleted minimum, otherwise one more
+	 * than the highest bit in which k differs from it
+	 */
+	private int bucketOf(int k)
+	{
+		return 32 - Integer.numberOfLeadingZeros(k ^ last);
+	}
+
+	/**
+	 * returns a slot for a new node with the given key,
+	 * a recycled one if there is any
+	 */
+	private int allocate(int k)
+	{
+		int x;
+		if (freeList != NIL) {
+			x = freeList;
+			freeList = next[x];
+		}
+		else {
+			this.ensureCapacity(slots + 1);
+			x = slots++;
+		}
+		key[x] = k;
+		return x;
+	}
+
+	/**
+	 * chain slot x to the free slots
+	 */
+	private void free(int x)
+	{
+		next[x] = freeList;
+		freeList = x;
+	}
+
+	/**
+	 * empty the heap, keeping its arrays
+	 */
+	private void clear()
+	{
+		Arrays.fill(heads, NIL);
+		slots = 0;
+		freeList = NIL;
+		min = NIL;
+		heapSize = 0;
+		movesCnt = 0;
+	}
+
+	/**
+	 * grow the arrays to hold at least capacity slots
+	 */
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= key.length)
+			return;
+		int newCapacity = Math.max(capacity, key.length * 2);
+		key = Arrays.copyOf(key, newCapacity);
+		next = Arrays.copyOf(next, newCapacity);
+		prev = Arrays.copyOf(prev, newCapacity);
+		bucket = Arrays.copyOf(bucket, newCapacity);
+	}
+
+	/**
+	 * connects y to be the next of x
+	 */
+	private void connectNext(int x, int y)
+	{
+		next[x] = y;
+		prev[y] = x;
+	}
+
+	/**
+	 * add x to the ring of bucket i, as its first node
+	 */
+	private void addToBucket(int x, int i)
+	{
+		int head = heads[i];
+		if (head == NIL) {
+			next[x] = x;
+			prev[x] = x;
+		}
+		else {
+			this.connectNext(prev[head], x);
+			this.connectNext(x, head);
+		}
+		heads[i] = x;
+		bucket[x] = i;
+	}
+
+	/**
+	 * remove x from the ring of its bucket
+	 */
+	private void removeFromBucket(int x)
+	{
+		int i = bucket[x];
+		if (next[x] == x)
+			heads[i] = NIL;
+		else {
+			this.connectNext(prev[x], next[x]);
+			if (heads[i] == x)
+				heads[i] = next[x];
+		}
+	}
+
+
+	/* #################################################################################
+	//                               QueueView class
+	#####################################################################################*/
+	/**
+	 * This heap as an AddressablePriorityQueue with SlotHandles.
+	 * The infos are dropped. meld copies the other heap's nodes, O(size of the
+	 * other heap), and moves their handles to the new slots. There are no trees,
+	 * links, cuts or heapifies: the counters are the non empty buckets and 0.
+	 */
+	private class QueueView implements AddressablePriorityQueue<SlotHandle>
+	{
+		private final SlotHandle.Table handles = new SlotHandle.Table();
+
+		RadixHeap heap()
+		{
+			return RadixHeap.this;
+		}
+
+		public SlotHandle insert(int key, String info)
+		{
+			return handles.get(RadixHeap.this.insert(key));
+		}
+
+		public SlotHandle findMin()
+		{
+			int x = RadixHeap.this.findMin();
+			return x == NIL ? null : handles.get(x);
+		}
+
+		public void deleteMin()
+		{
+			int x = RadixHeap.this.findMin();
+			if (x == NIL)
+				return;
+			handles.remove(x);
+			RadixHeap.this.deleteMin();
+		}
+
+		public void decreaseKey(SlotHandle x, int diff)
+		{
+			RadixHeap.this.decreaseKey((int) x.slot, diff);
+		}
+
+		public void delete(SlotHandle x)
+		{
+			int slot = (int) x.slot;
+			handles.remove(slot);
+			RadixHeap.this.delete(slot);
+		}
+
+		public void meld(AddressablePriorityQueue<SlotHandle> other)
+		{
+			QueueView view = (QueueView) other;
+			if (view == this)
+				return;
+			int offset = RadixHeap.this.meld(view.heap());
+			handles.moveFrom(view.handles, offset);
+		}
+
+		public int key(SlotHandle x)
+		{
+			return RadixHeap.this.key((int) x.slot);
+		}
+
+		public int size()
+		{
+			return RadixHeap.this.size();
+		}
+
+		public int numTrees()
+		{
+			return RadixHeap.this.numBuckets();
+		}
+
+		public long totalLinks()
+		{
+			return 0;
+		}
+
+		public long totalCuts()
+		{
+			return 0;
+		}
+
+		public long totalHeapifyCosts()
+		{
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,362 @@
+/**
+ * RankPairingHeap
+ *
+ * An implementation of rank-pairing heap (type 1) over positive integers.
+ * The heap is a list of half trees: binary trees in which every node's key is
+ * at most the keys in its left subtree, and whose roots have no right child.
+ * Roots are chained in a circular list by next. Only roots of equal rank are
+ * linked, once per deleteMin (one pass linking). decreaseKey cuts the node with
+ * its left subtree to a new root and repairs the ranks up its former ancestors:
+ * a node's rank is one more than its children's ranks when they are equal,
+ * otherwise their maximum, a missing child's rank being -1.
+ *
+ */
+public class RankPairingHeap implements AddressablePriorityQueue<RankPairingHeap.HeapNode>
+{
+	private static final int MAX_RANK = 64; // more than the ranks of 2^31 nodes
+
+	private HeapNode min;
+	private int heapSize;
+	private int numTrees;
+	private long linksCnt;
+	private long cutCnt;
+	private final HeapNode[] rankBuckets = new HeapNode[MAX_RANK]; // deleteMin workspace, indexed by rank
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 * empty constructor
+	 */
+	public RankPairingHeap(){
+		min = null;
+		heapSize = 0;
+		numTrees = 0;
+		linksCnt = 0;
+		cutCnt = 0;
+	}
+
+	/**
+	 * pre: key > 0
+	 *
+	 * Insert (key,info) into the heap and return the newly generated HeapNode.
+	 *
+	 */
+	public HeapNode insert(int key, String info)
+	{
+		HeapNode newNode = new HeapNode(key, info);
+		this.insertNodeToRoots(newNode);
+		heapSize++;
+		return newNode;
+	}
+
+	/**
+	 *
+	 * Return the minimal HeapNode, null if empty.
+	 *
+	 */
+	public HeapNode findMin()
+	{
+		return min;
+	}
+
+	/**
+	 *
+	 * Delete the minimal item
+	 *
+	 */
+	public void deleteMin()
+	{
+		if (min == null)
+			return;
+		HeapNode oldMin = min;
+		HeapNode root = oldMin.next;
+		min = null;
+		numTrees = 0;
+		// link the other roots and the right spine of the min's left child in one pass
+		while (root != oldMin) {
+			HeapNode nextRoot = root.next;
+			this.addToBuckets(root);
+			root = nextRoot;
+		}
+		HeapNode spine = oldMin.left;
+		while (spine != null) {
+			HeapNode nextSpine = spine.right;
+			spine.right = null;
+			spine.parent = null;
+			spine.rank = rankOf(spine.left) + 1;
+			this.addToBuckets(spine);
+			spine = nextSpine;
+		}
+		for (int rank = 0; rank < MAX_RANK; rank++) {
+			if (rankBuckets[rank] != null) {
+				this.insertNodeToRoots(rankBuckets[rank]);
+				rankBuckets[rank] = null;
+			}
+		}
+		oldMin.left = null;
+		oldMin.next = oldMin;
+		heapSize--;
+	}
+
+	/**
+	 *
+	 * pre: 0<=diff<=x.key
+	 *
+	 * Decrease the key of x by diff and fix the heap.
+	 *
+	 */
+	public void decreaseKey(HeapNode x, int diff)
+	{
+		x.key -= diff;
+		if (x.parent != null)
+			this.cut(x);
+		else if (x.key < min.key)
+			min = x;
+	}
+
+	/**
+	 *
+	 * Delete x from the heap
+	 *
+	 */
+	public void delete(HeapNode x)
+	{
+		if (x.parent != null)
+			this.cut(x);
+		min = x;
+		this.deleteMin();
+	}
+
+	/**
+	 *
+	 * pre: heap2 is a RankPairingHeap
+	 *
+	 * Meld the heap with heap2 by concatenating their roots, heap2 is left empty.
+	 *
+	 */
+	public void meld(AddressablePriorityQueue<HeapNode> heap2)
+	{
+		RankPairingHeap other = (RankPairingHeap) heap2;
+		if (other == null || other == this || other.min == null)
+			return;
+		if (min == null)
+			min = other.min;
+		else {
+			// splice other's roots in after min
+			HeapNode afterMin = min.next;
+			min.next = other.min.next;
+			other.min.next = afterMin;
+			if (other.min.key < min.key)
+				min = other.min;
+		}
+		heapSize += other.heapSize;
+		numTrees += other.numTrees;
+		linksCnt += other.linksCnt;
+		cutCnt += other.cutCnt;
+		other.min = null;
+		other.heapSize = 0;
+		other.numTrees = 0;
+	}
+
+	/**
+	 *
+	 * Return the key of x.
+	 *
+	 */
+	public int key(HeapNode x)
+	{
+		return x.key;
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the heap
+	 *
+	 */
+	public int size()
+	{
+		return heapSize;
+	}
+
+	/**
+	 *
+	 * Return the number of trees in the heap.
+	 *
+	 */
+	public int numTrees()
+	{
+		return numTrees;
+	}
+
+	/**
+	 *
+	 * Return the total number of links.
+	 *
+	 */
+	public long totalLinks()
+	{
+		return linksCnt;
+	}
+
+	/**
+	 *
+	 * Return the total number of cuts.
+	 *
+	 */
+	public long totalCuts()
+	{
+		return cutCnt;
+	}
+
+	/**
+	 *
+	 * Return the total heapify costs, always 0.
+	 *
+	 */
+	public long totalHeapifyCosts()
+	{
+		return 0;
+	}
+
+
+	/* #################################################################################
+	//                               help methods
+	#####################################################################################*/
+
+	/**
+	 * the rank of x, -1 for a missing node
+	 */
+	private static int rankOf(HeapNode x)
+	{
+		return x == null ? -1 : x.rank;
+	}
+
+	/**
+	 * add the half tree root x to the roots' list, updating the min
+	 */
+	private void insertNodeToRoots(HeapNode x)
+	{
+		if (min == null) {
+			x.next = x;
+			min = x;
+		}
+		else {
+			x.next = min.next;
+			min.next = x;
+			if (x.key < min.key)
+				min = x;
+		}
+		numTrees++;
+	}
+
+	/**
+	 * one pass linking: keep the half tree root x in the bucket of its rank,
+	 * or if the bucket is taken link the two and move the result to the roots
+	 */
+	private void addToBuckets(HeapNode x)
+	{
+		HeapNode other = rankBuckets[x.rank];
+		if (other == null)
+			rankBuckets[x.rank] = x;
+		else {
+			rankBuckets[x.rank] = null;
+			this.insertNodeToRoots(this.link(x, other));
+		}
+	}
+
+	/**
+	 * pre: x and y are half tree roots of the same rank
+	 * make the root with the bigger key the left child of the other, its
+	 * former left subtree becoming the right subtree of the new child.
+	 * returns the new root
+	 */
+	private HeapNode link(HeapNode x, HeapNode y)
+	{
+		if (y.key < x.key) {
+			HeapNode temp = x;
+			x = y;
+			y = temp;
+		}
+		y.right = x.left;
+		if (y.right != null)
+			y.right.parent = y;
+		x.left = y;
+		y.parent = x;
+		x.rank = y.rank + 1;
+		linksCnt++;
+		return x;
+	}
+
+	/**
+	 * pre: x is not a root
+	 * make x with its left subtree a new root, its right subtree taking its
+	 * place, and repair the ranks of its former ancestors
+	 */
+	private void cut(HeapNode x)
+	{
+		HeapNode parent = x.parent;
+		HeapNode right = x.right;
+		if (parent.left == x)
+			parent.left = right;
+		else
+			parent.right = right;
+		if (right != null)
+			right.parent = parent;
+		x.right = null;
+		x.parent = null;
+		x.rank = rankOf(x.left) + 1;
+		this.insertNodeToRoots(x);
+		cutCnt++;
+
+		// ranks only go down, stop at the first node whose rank stays
+		HeapNode node = parent;
+		while (node != null) {
+			if (node.parent == null) { // a root
+				node.rank = rankOf(node.left) + 1;
+				break;
+			}
+			int leftRank = rankOf(node.left);
+			int rightRank = rankOf(node.right);
+			int rank = (leftRank == rightRank) ? leftRank + 1 : Math.max(leftRank, rightRank);
+			if (rank >= node.rank)
+				break;
+			node.rank = rank;
+			node = node.parent;
+		}
+	}
+
+
+	/* #################################################################################
+	//                               HeapNode class
+	#####################################################################################*/
+	/**
+	 * Class implementing a node in a Rank Pairing Heap.
+	 *
+	 */
+	public static class HeapNode{
+		public int key;
+		public String info;
+		public HeapNode left;
+		public HeapNode right;
+		public HeapNode parent;
+		public HeapNode next; // next root, for roots only
+		public int rank;
+
+		/**
+		 * constructor with key and info
+		 * assign next to be this
+		 */
+		public HeapNode(int key, String info)
+		{
+			this.key = key;
+			this.info = info;
+			this.left = null;
+			this.right = null;
+			this.parent = null;
+			this.next = this;
+			this.rank = 0;
+		}
+	}
+}
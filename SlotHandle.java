@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+/**
+ * SlotHandle
+ *
+ * The handle of an item in the asQueue() view of a heap whose nodes are slots:
+ * IntFibonacciHeap, OffHeapHeap and RadixHeap. A meld copies the other heap's
+ * items to new slots, and the view moves their handles along, so a handle stays
+ * valid across melds as the node handles of the other engines do.
+ * Once its item is deleted the handle's slot is NIL (-1).
+ *
+ */
+public final class SlotHandle
+{
+	long slot; // the item's slot in its heap, moved by meld
+
+	SlotHandle(long slot)
+	{
+		this.slot = slot;
+	}
+
+	/**
+	 *
+	 * Return the item's current slot in its heap, -1 once the item was deleted.
+	 *
+	 */
+	public long slot()
+	{
+		return slot;
+	}
+
+
+	/* #################################################################################
+	//                               Table class
+	#####################################################################################*/
+	/**
+	 * The handles of a view, indexed by slot. A slot that got no handle through
+	 * the view (the item was inserted through the heap itself) gets one on demand.
+	 */
+	static final class Table
+	{
+		private SlotHandle[] handles = new SlotHandle[16];
+
+		/**
+		 * returns the handle of slot, a new one if it has none
+		 */
+		SlotHandle get(long slot)
+		{
+			int i = (int) slot;
+			if (i >= handles.length)
+				handles = Arrays.copyOf(handles, Math.max(i + 1, handles.length * 2));
+			if (handles[i] == null)
+				handles[i] = new SlotHandle(slot);
+			return handles[i];
+		}
+
+		/**
+		 * forget the handle of the deleted item in slot and mark it deleted
+		 */
+		void remove(long slot)
+		{
+			int i = (int) slot;
+			if (i < handles.length && handles[i] != null) {
+				handles[i].slot = -1;
+				handles[i] = null;
+			}
+		}
+
+		/**
+		 * take over the handles of other, whose items moved offset slots
+		 * into this table's heap, and leave other empty
+		 */
+		void moveFrom(Table other, long offset)
+		{
+			for (SlotHandle handle : other.handles) {
+				if (handle == null)
+					continue;
+				handle.slot += offset;
+				int i = (int) handle.slot;
+				if (i >= handles.length)
+					handles = Arrays.copyOf(handles, Math.max(i + 1, handles.length * 2));
+				handles[i] = handle;
+			}
+			Arrays.fill(other.handles, null);
+		}
+	}
+}
@@ -0,0 +1,277 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+public class SlotHeapTest {
+
+    private static final int TRACE_LENGTH = 20000;
+    private static final int MAX_KEY = 100000;
+
+    public static void main(String[] args) {
+        String[] failedTests = new String[3];
+        int failCount = 0;
+        int testCount = 3;
+
+        if (!testIntFibonacciHeap(new Random(1))) {
+            failedTests[failCount++] = "IntFibonacciHeap: random trace with melds against java.util.PriorityQueue";
+        }
+
+        if (!testOffHeapHeap(new Random(2))) {
+            failedTests[failCount++] = "OffHeapHeap: random trace with melds against java.util.PriorityQueue";
+        }
+
+        if (!testRadixHeap(new Random(3))) {
+            failedTests[failCount++] = "RadixHeap: random monotone trace with melds against java.util.PriorityQueue";
+        }
+
+        System.out.println("Passed: " + (testCount - failCount) + " / " + testCount);
+        if (failCount > 0) {
+            System.out.println("Failed tests:");
+            for (int i = 0; i < failCount; i++) {
+                System.out.println("  - " + failedTests[i]);
+            }
+        } else {
+            System.out.println("All tests passed!");
+        }
+    }
+
+    /**
+     * Runs inserts, decreaseKeys, deletes, deleteMins and melds on an IntFibonacciHeap
+     * and on a java.util.PriorityQueue of the keys. After a meld the other heap's
+     * handles plus the returned offset must still reach their items.
+     */
+    private static boolean testIntFibonacciHeap(Random random) {
+        IntFibonacciHeap heap = new IntFibonacciHeap();
+        PriorityQueue<Integer> reference = new PriorityQueue<>();
+        List<Integer> handles = new ArrayList<>();
+        for (int op = 0; op < TRACE_LENGTH; op++) {
+            int choice = random.nextInt(10);
+            if (choice < 4 || handles.isEmpty()) {
+                int key = 1 + random.nextInt(MAX_KEY);
+                handles.add(heap.insert(key));
+                reference.add(key);
+            } else if (choice < 6) {
+                int x = handles.get(random.nextInt(handles.size()));
+                int key = heap.key(x);
+                int diff = random.nextInt(key); // keys stay positive
+                reference.remove(key);
+                heap.decreaseKey(x, diff);
+                reference.add(key - diff);
+            } else if (choice < 7) {
+                int x = handles.remove(random.nextInt(handles.size()));
+                reference.remove(heap.key(x));
+                heap.delete(x);
+            } else if (choice < 9) {
+                int min = heap.findMin();
+                if (min == IntFibonacciHeap.NIL || heap.key(min) != reference.poll()) {
+                    return false;
+                }
+                handles.remove((Integer) min);
+                heap.deleteMin();
+            } else {
+                IntFibonacciHeap other = new IntFibonacciHeap();
+                List<Integer> otherHandles = new ArrayList<>();
+                List<Integer> otherKeys = new ArrayList<>();
+                for (int i = random.nextInt(40); i > 0; i--) {
+                    int key = 1 + random.nextInt(MAX_KEY);
+                    otherHandles.add(other.insert(key));
+                    otherKeys.add(key);
+                    reference.add(key);
+                }
+                int offset = heap.meld(other);
+                for (int i = 0; i < otherHandles.size(); i++) {
+                    int x = otherHandles.get(i) + offset;
+                    if (heap.key(x) != otherKeys.get(i)) {
+                        return false;
+                    }
+                    handles.add(x);
+                }
+                if (other.size() != 0) {
+                    return false;
+                }
+            }
+            if (heap.size() != reference.size()) {
+                return false;
+            }
+        }
+        // drain in order
+        while (!reference.isEmpty()) {
+            int min = heap.findMin();
+            if (min == IntFibonacciHeap.NIL || heap.key(min) != reference.poll()) {
+                return false;
+            }
+            heap.deleteMin();
+        }
+        return heap.size() == 0 && heap.findMin() == IntFibonacciHeap.NIL;
+    }
+
+    /**
+     * The same trace on an OffHeapHeap in all four lazy modes, a quarter as long
+     * as every meld allocates a slab, also checking that every record keeps its
+     * value through decreaseKeys and melds.
+     */
+    private static boolean testOffHeapHeap(Random random) {
+        for (int mode = 0; mode < 4; mode++) {
+            boolean lazyMelds = (mode & 1) != 0;
+            boolean lazyDecreaseKeys = (mode & 2) != 0;
+            OffHeapHeap heap = new OffHeapHeap(lazyMelds, lazyDecreaseKeys);
+            PriorityQueue<Integer> reference = new PriorityQueue<>();
+            List<Long> handles = new ArrayList<>();
+            Map<Long, Long> values = new HashMap<>();
+            long nextValue = 0;
+            for (int op = 0; op < TRACE_LENGTH / 4; op++) {
+                int choice = random.nextInt(10);
+                if (choice < 4 || handles.isEmpty()) {
+                    int key = 1 + random.nextInt(MAX_KEY);
+                    long x = heap.insert(key, nextValue);
+                    handles.add(x);
+                    values.put(x, nextValue++);
+                    reference.add(key);
+                } else if (choice < 6) {
+                    long x = handles.get(random.nextInt(handles.size()));
+                    int key = heap.key(x);
+                    int diff = random.nextInt(key); // keys stay positive
+                    reference.remove(key);
+                    heap.decreaseKey(x, diff);
+                    reference.add(key - diff);
+                } else if (choice < 7) {
+                    long x = handles.remove(random.nextInt(handles.size()));
+                    if (heap.value(x) != values.remove(x)) {
+                        return false;
+                    }
+                    reference.remove(heap.key(x));
+                    heap.delete(x);
+                } else if (choice < 9) {
+                    long min = heap.findMin();
+                    if (min == OffHeapHeap.NIL || heap.key(min) != reference.poll()
+                            || heap.value(min) != values.remove(min)) {
+                        return false;
+                    }
+                    handles.remove((Long) min);
+                    heap.deleteMin();
+                } else {
+                    OffHeapHeap other = new OffHeapHeap(lazyMelds, lazyDecreaseKeys);
+                    List<Long> otherHandles = new ArrayList<>();
+                    List<Integer> otherKeys = new ArrayList<>();
+                    long firstValue = nextValue;
+                    for (int i = random.nextInt(40); i > 0; i--) {
+                        int key = 1 + random.nextInt(MAX_KEY);
+                        otherHandles.add(other.insert(key, nextValue++));
+                        otherKeys.add(key);
+                        reference.add(key);
+                    }
+                    long offset = heap.meld(other);
+                    for (int i = 0; i < otherHandles.size(); i++) {
+                        long x = otherHandles.get(i) + offset;
+                        if (heap.key(x) != otherKeys.get(i)) {
+                            return false;
+                        }
+                        handles.add(x);
+                        values.put(x, firstValue + i);
+                    }
+                    if (other.size() != 0) {
+                        return false;
+                    }
+                }
+                if (heap.size() != reference.size()) {
+                    return false;
+                }
+            }
+            while (!reference.isEmpty()) {
+                long min = heap.findMin();
+                if (min == OffHeapHeap.NIL || heap.key(min) != reference.poll()) {
+                    return false;
+                }
+                heap.deleteMin();
+            }
+            if (heap.size() != 0 || heap.findMin() != OffHeapHeap.NIL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The same trace on a RadixHeap with monotone keys: every new or decreased key
+     * is at least the last deleted minimum. A meld of a heap with a key below it
+     * must throw and leave both heaps as they were.
+     */
+    private static boolean testRadixHeap(Random random) {
+        RadixHeap heap = new RadixHeap();
+        PriorityQueue<Integer> reference = new PriorityQueue<>();
+        List<Integer> handles = new ArrayList<>();
+        for (int op = 0; op < TRACE_LENGTH; op++) {
+            int floor = Math.max(heap.lastDeletedKey(), 1);
+            int choice = random.nextInt(10);
+            if (choice < 4 || handles.isEmpty()) {
+                int key = floor + random.nextInt(MAX_KEY);
+                handles.add(heap.insert(key));
+                reference.add(key);
+            } else if (choice < 6) {
+                int x = handles.get(random.nextInt(handles.size()));
+                int key = heap.key(x);
+                int diff = random.nextInt(key - floor + 1);
+                reference.remove(key);
+                heap.decreaseKey(x, diff);
+                reference.add(key - diff);
+            } else if (choice < 7) {
+                int x = handles.remove(random.nextInt(handles.size()));
+                reference.remove(heap.key(x));
+                heap.delete(x);
+            } else if (choice < 9) {
+                int min = heap.findMin();
+                if (min == RadixHeap.NIL || heap.key(min) != reference.poll()) {
+                    return false;
+                }
+                handles.remove((Integer) min);
+                heap.deleteMin();
+            } else if (floor > 1 && random.nextInt(4) == 0) {
+                RadixHeap other = new RadixHeap();
+                other.insert(random.nextInt(floor - 1) + 1);
+                try {
+                    heap.meld(other);
+                    return false;
+                } catch (IllegalArgumentException e) {
+                    if (other.size() != 1 || heap.size() != reference.size()) {
+                        return false;
+                    }
+                }
+            } else {
+                RadixHeap other = new RadixHeap();
+                List<Integer> otherHandles = new ArrayList<>();
+                List<Integer> otherKeys = new ArrayList<>();
+                for (int i = random.nextInt(40); i > 0; i--) {
+                    int key = floor + random.nextInt(MAX_KEY);
+                    otherHandles.add(other.insert(key));
+                    otherKeys.add(key);
+                    reference.add(key);
+                }
+                int offset = heap.meld(other);
+                for (int i = 0; i < otherHandles.size(); i++) {
+                    int x = otherHandles.get(i) + offset;
+                    if (heap.key(x) != otherKeys.get(i)) {
+                        return false;
+                    }
+                    handles.add(x);
+                }
+                if (other.size() != 0) {
+                    return false;
+                }
+            }
+            if (heap.size() != reference.size()) {
+                return false;
+            }
+        }
+        while (!reference.isEmpty()) {
+            int min = heap.findMin();
+            if (min == RadixHeap.NIL || heap.key(min) != reference.poll()) {
+                return false;
+            }
+            heap.deleteMin();
+        }
+        return heap.size() == 0 && heap.findMin() == RadixHeap.NIL;
+    }
+}
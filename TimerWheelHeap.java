@@ -0,0 +1,378 @@
+/**
+ * TimerWheelHeap
+ *
+ * A priority queue over positive integers for keys that mostly land close to
+ * the minimum, like deadlines. The keys in [base, base + horizon), base being
+ * the minimal key, live in a timer wheel: one FIFO bucket per key, found by
+ * key mod horizon, with a bitmap of the non empty buckets. Farther keys spill
+ * into a Heap and are promoted into the wheel as the base advances.
+ * A key below the base rebases the wheel, spilling the buckets that fall
+ * beyond the new horizon.
+ * insert, decreaseKey and delete of near keys are O(1), deleteMin scans the
+ * bitmap for the next non empty bucket, O(horizon / 64) at most.
+ *
+ */
+public class TimerWheelHeap implements AddressablePriorityQueue<Heap.HeapNode>
+{
+	public final int horizon;
+	private final int mask;
+	private final Heap.HeapNode[] buckets; // the first node of each bucket's ring
+	private final long[] occupied; // bit i is set iff buckets[i] is not empty
+	private final Heap far; // the keys >= base + horizon
+	private int base; // the minimal key, when not empty
+	private int wheelSize;
+	private long spills;
+	private long promotions;
+
+	/* #################################################################################
+	//                               main methods
+	#####################################################################################*/
+
+	/**
+	 * constructor of an empty heap whose wheel holds the keys up to horizon
+	 * (rounded up to a power of 2) away from the minimum. the far keys are kept
+	 * in a Heap with the given lazyMelds and lazyDecreaseKeys
+	 */
+	public TimerWheelHeap(int horizon, boolean lazyMelds, boolean lazyDecreaseKeys)
+	{
+		int size = Integer.highestOneBit(Math.max(horizon - 1, 1)) << 1;
+		this.horizon = size;
+		this.mask = size - 1;
+		this.buckets = new Heap.HeapNode[size];
+		this.occupied = new long[(size + 63) >>> 6];
+		this.far = new Heap(lazyMelds, lazyDecreaseKeys);
+	}
+
+	/**
+	 * pre: key > 0
+	 *
+	 * Insert (key,info) into the heap and return the newly generated HeapNode.
+	 *
+	 */
+	public Heap.HeapNode insert(int key, String info)
+	{
+		Heap.HeapNode node = new Heap.HeapNode(key, info);
+		this.place(node);
+		return node;
+	}
+
+	/**
+	 *
+	 * Return the minimal HeapNode, null if empty.
+	 *
+	 */
+	public Heap.HeapNode findMin()
+	{
+		return wheelSize == 0 ? null : buckets[base & mask];
+	}
+
+	/**
+	 *
+	 * Delete the minimal item.
+	 *
+	 */
+	public void deleteMin()
+	{
+		if (wheelSize == 0)
+			return;
+		this.unlinkFromBucket(buckets[base & mask]);
+		this.advance();
+	}
+
+	/**
+	 *
+	 * pre: 0<=diff<=x.key
+	 *
+	 * Decrease the key of x by diff.
+	 *
+	 */
+	public void decreaseKey(Heap.HeapNode x, int diff)
+	{
+		if (this.inWheel(x.key)) {
+			this.unlinkFromBucket(x);
+			x.key -= diff;
+			this.place(x);
+		}
+		else if (x.key - diff < (long) base + horizon) {
+			int key = x.key - diff;
+			far.delete(x);
+			x.key = key;
+			this.place(x);
+		}
+		else
+			far.decreaseKey(x, diff);
+	}
+
+	/**
+	 *
+	 * Delete the x from the heap.
+	 *
+	 */
+	public void delete(Heap.HeapNode x)
+	{
+		if (this.inWheel(x.key)) {
+			this.unlinkFromBucket(x);
+			this.advance();
+		}
+		else
+			far.delete(x);
+	}
+
+	/**
+	 *
+	 * pre: heap2 is a TimerWheelHeap
+	 *
+	 * Meld the heap with heap2 by moving heap2's nodes one by one in order,
+	 * O(m log m) for m nodes in heap2. The nodes keep their handles and heap2
+	 * is left empty.
+	 *
+	 */
+	public void meld(AddressablePriorityQueue<Heap.HeapNode> heap2)
+	{
+		TimerWheelHeap other = (TimerWheelHeap) heap2;
+		if (other == null || other == this)
+			return;
+		while (other.size() > 0) {
+			Heap.HeapNode node = other.findMin();
+			other.deleteMin();
+			this.place(node);
+		}
+	}
+
+	/**
+	 *
+	 * Return the key of x.
+	 *
+	 */
+	public int key(Heap.HeapNode x)
+	{
+		return x.key;
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the heap
+	 *
+	 */
+	public int size()
+	{
+		return wheelSize + far.size();
+	}
+
+	/**
+	 *
+	 * Return the number of elements in the wheel
+	 *
+	 */
+	public int wheelSize()
+	{
+		return wheelSize;
+	}
+
+	/**
+	 *
+	 * Return the number of non empty buckets plus the far Heap's trees.
+	 *
+	 */
+	public int numTrees()
+	{
+		int numBuckets = 0;
+		for (long word : occupied)
+			numBuckets += Long.bitCount(word);
+		return numBuckets + far.numTrees();
+	}
+
+	/**
+	 *
+	 * Return the far Heap's total number of links.
+	 *
+	 */
+	public long totalLinks()
+	{
+		return far.totalLinks();
+	}
+
+	/**
+	 *
+	 * Return the far Heap's total number of cuts.
+	 *
+	 */
+	public long totalCuts()
+	{
+		return far.totalCuts();
+	}
+
+	/**
+	 *
+	 * Return the far Heap's total heapify costs.
+	 *
+	 */
+	public long totalHeapifyCosts()
+	{
+		return far.totalHeapifyCosts();
+	}
+
+	/**
+	 *
+	 * Return the number of nodes ever moved from the wheel to the far Heap
+	 *
+	 */
+	public long totalSpills()
+	{
+		return spills;
+	}
+
+	/**
+	 *
+	 * Return the number of nodes ever moved from the far Heap to the wheel
+	 *
+	 */
+	public long totalPromotions()
+	{
+		return promotions;
+	}
+
+	/**
+	 *
+	 * Return the Heap of the far keys, for its counters
+	 *
+	 */
+	public Heap farHeap()
+	{
+		return far;
+	}
+
+
+	/* #################################################################################
+	//                               help methods
+	#####################################################################################*/
+
+	/**
+	 * is key in the wheel's range. pre: the heap is not empty
+	 */
+	private boolean inWheel(int key)
+	{
+		return key >= base && key < (long) base + horizon;
+	}
+
+	/**
+	 * put the detached node x in the wheel or in the far Heap by its key,
+	 * rebasing the wheel when x is the new minimum
+	 */
+	private void place(Heap.HeapNode x)
+	{
+		if (this.size() == 0)
+			base = x.key;
+		else if (x.key < base)
+			this.rebase(x.key);
+		if (this.inWheel(x.key))
+			this.linkToBucket(x);
+		else
+			far.insertNode(x);
+	}
+
+	/**
+	 * pre: newBase < base
+	 * move the base down to newBase, spilling the buckets beyond the new horizon
+	 */
+	private void rebase(int newBase)
+	{
+		long limit = (long) base + horizon;
+		long spillFrom = Math.max((long) newBase + horizon, base);
+		for (long key = spillFrom; key < limit && wheelSize > 0; key++) {
+			Heap.HeapNode node = buckets[(int) key & mask];
+			while (node != null) {
+				this.unlinkFromBucket(node);
+				far.insertNode(node);
+				spills++;
+				node = buckets[(int) key & mask];
+			}
+		}
+		base = newBase;
+	}
+
+	/**
+	 * when the bucket of the base is empty, move the base to the next minimal
+	 * key and promote the far keys that come into the horizon
+	 */
+	private void advance()
+	{
+		if (buckets[base & mask] != null)
+			return;
+		if (wheelSize > 0)
+			base = this.nextOccupied(base);
+		else if (far.size() > 0)
+			base = far.findMin().key;
+		else
+			return;
+		while (far.size() > 0 && far.findMin().key < (long) base + horizon) {
+			Heap.HeapNode node = far.findMin();
+			far.deleteMin();
+			this.linkToBucket(node);
+			promotions++;
+		}
+	}
+
+	/**
+	 * pre: the wheel is not empty
+	 * the smallest key after from whose bucket is not empty
+	 */
+	private int nextOccupied(int from)
+	{
+		int start = (from + 1) & mask;
+		int word = start >>> 6;
+		long bits = occupied[word] & (-1L << start);
+		// look from start to the end of the wheel, then around from its beginning
+		for (int i = 0; i <= occupied.length; i++) {
+			if (bits != 0) {
+				int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+				return from + 1 + ((index - start) & mask);
+			}
+			word = (word + 1) % occupied.length;
+			bits = occupied[word];
+		}
+		throw new IllegalStateException("empty wheel");
+	}
+
+	/**
+	 * add the detached node x at the end of its key's bucket
+	 */
+	private void linkToBucket(Heap.HeapNode x)
+	{
+		int index = x.key & mask;
+		x.parent = null;
+		x.child = null;
+		x.rank = 0;
+		x.mark = false;
+		Heap.HeapNode first = buckets[index];
+		if (first == null) {
+			x.next = x;
+			x.prev = x;
+			buckets[index] = x;
+			occupied[index >>> 6] |= 1L << index;
+		}
+		else
+			x.insertBefore(first);
+		wheelSize++;
+	}
+
+	/**
+	 * remove x from its key's bucket
+	 */
+	private void unlinkFromBucket(Heap.HeapNode x)
+	{
+		int index = x.key & mask;
+		if (x.next == x) {
+			buckets[index] = null;
+			occupied[index >>> 6] &= ~(1L << index);
+		}
+		else {
+			x.prev.connectNext(x.next);
+			if (buckets[index] == x)
+				buckets[index] = x.next;
+		}
+		x.next = x;
+		x.prev = x;
+		wheelSize--;
+	}
+}